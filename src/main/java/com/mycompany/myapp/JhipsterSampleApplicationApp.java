@@ -1,33 +1,24 @@
 package com.mycompany.myapp;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mycompany.myapp.config.ApplicationProperties;
 import com.mycompany.myapp.config.DefaultProfileUtil;
 
-import com.mycompany.myapp.domain.Users;
-import com.mycompany.myapp.service.UsersService;
 import io.github.jhipster.config.JHipsterConstants;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
-import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
-import org.springframework.context.annotation.Bean;
 import org.springframework.core.env.Environment;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
 
 @SpringBootApplication
 @EnableConfigurationProperties({LiquibaseProperties.class, ApplicationProperties.class})
@@ -104,20 +95,4 @@ public class JhipsterSampleApplicationApp implements InitializingBean {
             contextPath,
             env.getActiveProfiles());
     }
-
-    @Bean
-    CommandLineRunner runner(UsersService usersService){
-        return args -> {
-            ObjectMapper mapper = new ObjectMapper();
-            TypeReference<List<Users>> typeReference = new TypeReference<List<Users>>(){};
-            InputStream inputStream = TypeReference.class.getResourceAsStream("/json/users.json");
-            try {
-                List<Users> users = mapper.readValue(inputStream,typeReference);
-                usersService.save((Users) users);
-                System.out.println("Users Saved!");
-            } catch (IOException e){
-                System.out.println("Unable to save users: " + e.getMessage());
-            }
-        };
-    }
 }
@@ -0,0 +1,185 @@
+package com.mycompany.myapp.config;
+
+import io.github.jhipster.config.JHipsterProperties;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.spi.service.ServiceCreationConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.io.File;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Creates the JCache {@link CacheManager} with off-heap and disk tiers for the regions listed in
+ * {@link EhcacheTiersProperties}.
+ * <p>
+ * Off-heap and disk tiers are sized in bytes and do not add GC pressure, so they can hold the whole
+ * active-user set. Disk tiers are not persistent by default: nothing replays the changes made while the node was
+ * down, and the cache invalidation bus only delivers the last few seconds of them at startup, so a reloaded
+ * region would serve stale users. Persistent disk tiers are meant for regions whose entries cannot go stale.
+ * <p>
+ * The tiered regions are created before the {@link JCacheManagerCustomizer}s run, and the customizers cannot
+ * replace them: they keep creating the other regions with the on-heap configuration of {@code jhipster.cache.ehcache}.
+ */
+@Configuration
+@EnableConfigurationProperties(EhcacheTiersProperties.class)
+@ConditionalOnProperty(prefix = "application.cache.ehcache", name = "enabled", havingValue = "true")
+public class EhcacheTiersConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(EhcacheTiersConfiguration.class);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager jCacheManager(EhcacheTiersProperties properties, JHipsterProperties jHipsterProperties,
+                                      ObjectProvider<JCacheManagerCustomizer> customizers) {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        ServiceCreationConfiguration<?>[] services = properties.getDiskPath() == null
+            ? new ServiceCreationConfiguration<?>[0]
+            : new ServiceCreationConfiguration<?>[] { new DefaultPersistenceConfiguration(new File(properties.getDiskPath())) };
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(),
+            new DefaultConfiguration(provider.getDefaultClassLoader(), services));
+
+        long defaultTimeToLive = jHipsterProperties.getCache().getEhcache().getTimeToLiveSeconds();
+        properties.getRegions().forEach((name, region) -> {
+            log.debug("Creating cache {} with {} heap entries, {}MB off-heap and {}MB on disk",
+                name, region.getHeapEntries(), region.getOffHeapMegabytes(), region.getDiskMegabytes());
+            if (region.getDiskMegabytes() > 0 && region.isDiskPersistent()) {
+                log.warn("Cache {} is reloaded from disk: the entries changed while this node was down stay stale", name);
+            }
+            cacheManager.createCache(name, Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, resourcePools(region, properties))
+                    .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(
+                        region.getTimeToLiveSeconds() != null ? region.getTimeToLiveSeconds() : defaultTimeToLive)))
+                    .build()));
+        });
+
+        CacheManager guarded = new TieredRegionsGuard(cacheManager, properties.getRegions().keySet());
+        customizers.orderedStream().forEach(customizer -> customizer.customize(guarded));
+        return cacheManager;
+    }
+
+    private static ResourcePoolsBuilder resourcePools(EhcacheTiersProperties.Region region, EhcacheTiersProperties properties) {
+        ResourcePoolsBuilder pools = ResourcePoolsBuilder.newResourcePoolsBuilder()
+            .heap(region.getHeapEntries(), EntryUnit.ENTRIES);
+        if (region.getOffHeapMegabytes() > 0) {
+            pools = pools.offheap(region.getOffHeapMegabytes(), MemoryUnit.MB);
+        }
+        if (region.getDiskMegabytes() > 0) {
+            if (properties.getDiskPath() == null) {
+                throw new IllegalStateException("application.cache.ehcache.disk-path is required by the disk tiers");
+            }
+            pools = pools.disk(region.getDiskMegabytes(), MemoryUnit.MB, region.isDiskPersistent());
+        }
+        return pools;
+    }
+
+    /**
+     * View of the {@link CacheManager} given to the customizers, which keeps the tiered regions as they are.
+     */
+    static class TieredRegionsGuard implements CacheManager {
+
+        private final CacheManager delegate;
+
+        private final Set<String> tieredRegions;
+
+        TieredRegionsGuard(CacheManager delegate, Set<String> tieredRegions) {
+            this.delegate = delegate;
+            this.tieredRegions = tieredRegions;
+        }
+
+        @Override
+        public CachingProvider getCachingProvider() {
+            return delegate.getCachingProvider();
+        }
+
+        @Override
+        public URI getURI() {
+            return delegate.getURI();
+        }
+
+        @Override
+        public ClassLoader getClassLoader() {
+            return delegate.getClassLoader();
+        }
+
+        @Override
+        public Properties getProperties() {
+            return delegate.getProperties();
+        }
+
+        @Override
+        public <K, V, C extends javax.cache.configuration.Configuration<K, V>> Cache<K, V> createCache(String cacheName, C configuration) {
+            if (tieredRegions.contains(cacheName)) {
+                return delegate.getCache(cacheName);
+            }
+            return delegate.createCache(cacheName, configuration);
+        }
+
+        @Override
+        public <K, V> Cache<K, V> getCache(String cacheName, Class<K> keyType, Class<V> valueType) {
+            return delegate.getCache(cacheName, keyType, valueType);
+        }
+
+        @Override
+        public <K, V> Cache<K, V> getCache(String cacheName) {
+            return delegate.getCache(cacheName);
+        }
+
+        @Override
+        public Iterable<String> getCacheNames() {
+            return delegate.getCacheNames();
+        }
+
+        @Override
+        public void destroyCache(String cacheName) {
+            if (!tieredRegions.contains(cacheName)) {
+                delegate.destroyCache(cacheName);
+            }
+        }
+
+        @Override
+        public void enableManagement(String cacheName, boolean enabled) {
+            delegate.enableManagement(cacheName, enabled);
+        }
+
+        @Override
+        public void enableStatistics(String cacheName, boolean enabled) {
+            delegate.enableStatistics(cacheName, enabled);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return delegate.isClosed();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> clazz) {
+            return delegate.unwrap(clazz);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.mycompany.myapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sizing of the Ehcache tiers, per region.
+ * <p>
+ * Properties are configured in the {@code application.yml} file, under {@code application.cache.ehcache}.
+ * Regions which are not listed keep the on-heap only configuration of {@code jhipster.cache.ehcache}.
+ */
+@ConfigurationProperties(prefix = "application.cache.ehcache", ignoreUnknownFields = false)
+public class EhcacheTiersProperties {
+
+    private boolean enabled = false;
+
+    private String diskPath;
+
+    private final Map<String, Region> regions = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDiskPath() {
+        return diskPath;
+    }
+
+    public void setDiskPath(String diskPath) {
+        this.diskPath = diskPath;
+    }
+
+    public Map<String, Region> getRegions() {
+        return regions;
+    }
+
+    /**
+     * Tiers of one region. A tier sized to 0 is not used.
+     */
+    public static class Region {
+
+        private long heapEntries = 1000;
+
+        private long offHeapMegabytes = 0;
+
+        private long diskMegabytes = 0;
+
+        private boolean diskPersistent = false;
+
+        private Long timeToLiveSeconds;
+
+        public long getHeapEntries() {
+            return heapEntries;
+        }
+
+        public void setHeapEntries(long heapEntries) {
+            this.heapEntries = heapEntries;
+        }
+
+        public long getOffHeapMegabytes() {
+            return offHeapMegabytes;
+        }
+
+        public void setOffHeapMegabytes(long offHeapMegabytes) {
+            this.offHeapMegabytes = offHeapMegabytes;
+        }
+
+        public long getDiskMegabytes() {
+            return diskMegabytes;
+        }
+
+        public void setDiskMegabytes(long diskMegabytes) {
+            this.diskMegabytes = diskMegabytes;
+        }
+
+        public boolean isDiskPersistent() {
+            return diskPersistent;
+        }
+
+        public void setDiskPersistent(boolean diskPersistent) {
+            this.diskPersistent = diskPersistent;
+        }
+
+        public Long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(Long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.mycompany.myapp.config;
+
+import com.mycompany.myapp.security.AdaptiveBCryptPasswordEncoder;
+import com.mycompany.myapp.security.BoundedPasswordEncoder;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runs password hashing on a dedicated, bounded pool instead of the web server worker threads, with a
+ * BCrypt work factor calibrated at startup on the current hardware.
+ * <p>
+ * The encoder is the single {@code passwordEncoder} bean of the application: Spring Security only picks a
+ * {@link org.springframework.security.crypto.password.PasswordEncoder} for the authentication provider when
+ * there is exactly one, so it replaces the plain BCrypt one of {@code SecurityConfiguration}. Declaring another
+ * {@code passwordEncoder} bean fails the startup, bean overriding being disabled.
+ */
+@Configuration
+public class PasswordHashingConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(PasswordHashingConfiguration.class);
+
+    @Value("${application.security.password-hashing.threads:0}")
+    private int threads;
+
+    @Value("${application.security.password-hashing.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${application.security.password-hashing.target-millis:250}")
+    private long targetMillis;
+
+    @Value("${application.security.password-hashing.timeout-millis:5000}")
+    private long timeoutMillis;
+
+    @Value("${application.security.password-hashing.min-strength:10}")
+    private int minStrength;
+
+    @Value("${application.security.password-hashing.max-strength:14}")
+    private int maxStrength;
+
+    @Bean
+    public BoundedPasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        log.debug("Hashing passwords on {} threads, with {} queued requests at most", poolSize, queueCapacity);
+        int strength = AdaptiveBCryptPasswordEncoder.calibrateStrength(targetMillis, minStrength, maxStrength);
+        Gauge.builder("security.password.hashing.strength", () -> strength)
+            .description("BCrypt work factor used for new password hashes")
+            .register(meterRegistry);
+        AdaptiveBCryptPasswordEncoder delegate = new AdaptiveBCryptPasswordEncoder(strength);
+        return new BoundedPasswordEncoder(delegate, poolSize, queueCapacity, timeoutMillis, meterRegistry);
+    }
+}
@@ -0,0 +1,177 @@
+package com.mycompany.myapp.config;
+
+import com.mycompany.myapp.security.SecurityUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends the read-only transactions to the replicas, in turn, and everything else to the primary.
+ * <p>
+ * A user who committed a read-write transaction keeps reading from the primary for the read-your-writes window,
+ * so that they do not read a replica which has not replayed their change yet. Connections are routed when they
+ * are obtained, so this {@link DataSource} must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction managers obtain
+ * the connection before the transaction is flagged as read-only.
+ * <p>
+ * The user caches are evicted when a change commits on the primary, so a read-only transaction filling them
+ * from a lagging replica would cache the row from before the change, for every user, until the cache expires.
+ * The reads filling the user caches must therefore run in {@link #readFromPrimary(Supplier)}, or must not fill
+ * them, e.g. with {@code CacheMode.GET} for the second-level cache. The scope only applies to the connections
+ * obtained inside it: a transaction which already read from a replica keeps its connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    static final String PRIMARY = "primary";
+
+    static final String REPLICA_PREFIX = "replica-";
+
+    private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+    private final DataSource primary;
+
+    private final List<DataSource> replicas;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Cache<String, Boolean> recentWriters;
+
+    private final Counter noTransaction;
+
+    private final Counter readWrite;
+
+    private final Counter readYourWrites;
+
+    private final Counter cacheFill;
+
+    private final List<Counter> readOnly = new ArrayList<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long readYourWritesMillis,
+                                    int maxTrackedUsers, MeterRegistry meterRegistry) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+        this.primary = primary;
+        this.replicas = replicas;
+        // Beyond the limit, the writers are evicted early: their reads may lag behind until the replicas catch up
+        this.recentWriters = Caffeine.newBuilder()
+            .maximumSize(maxTrackedUsers)
+            .expireAfterWrite(readYourWritesMillis, TimeUnit.MILLISECONDS)
+            .executor(Runnable::run)
+            .build();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(REPLICA_PREFIX + (i + 1), replicas.get(i));
+            readOnly.add(routings(meterRegistry, REPLICA_PREFIX + (i + 1), "read-only"));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.noTransaction = routings(meterRegistry, PRIMARY, "no-transaction");
+        this.readWrite = routings(meterRegistry, PRIMARY, "read-write");
+        this.readYourWrites = routings(meterRegistry, PRIMARY, "read-your-writes");
+        this.cacheFill = routings(meterRegistry, PRIMARY, "cache-fill");
+        Gauge.builder("datasource.routing.recent.writers", recentWriters, Cache::estimatedSize)
+            .description("Users reading from the primary because they have just written")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Runs reads on the primary even in read-only transactions, because their results are cached. This has no
+     * effect when the replica routing is disabled.
+     *
+     * @param reads the reads.
+     * @param <T> the type of the result.
+     * @return the result of the reads.
+     */
+    public static <T> T readFromPrimary(Supplier<T> reads) {
+        if (PRIMARY_READS.get() != null) {
+            return reads.get();
+        }
+        PRIMARY_READS.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            PRIMARY_READS.remove();
+        }
+    }
+
+    private static Counter routings(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder("datasource.routing")
+            .description("Connections obtained, by target database and reason")
+            .tag("target", target)
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            noTransaction.increment();
+            return PRIMARY;
+        }
+        String login = SecurityUtils.getCurrentUserLogin().orElse(null);
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            readWrite.increment();
+            if (login != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCommit() {
+                        wrote(login);
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+        if (PRIMARY_READS.get() != null) {
+            cacheFill.increment();
+            return PRIMARY;
+        }
+        if (login != null && hasRecentlyWritten(login)) {
+            readYourWrites.increment();
+            return PRIMARY;
+        }
+        int replica = Math.floorMod(next.getAndIncrement(), replicas.size());
+        readOnly.get(replica).increment();
+        return REPLICA_PREFIX + (replica + 1);
+    }
+
+    private void wrote(String login) {
+        recentWriters.put(login, Boolean.TRUE);
+    }
+
+    private boolean hasRecentlyWritten(String login) {
+        return recentWriters.getIfPresent(login) != null;
+    }
+
+    /**
+     * Closes the pools of the primary and of the replicas.
+     */
+    @Override
+    public void close() throws IOException {
+        List<DataSource> pools = new ArrayList<>(replicas);
+        pools.add(primary);
+        for (DataSource pool : pools) {
+            if (pool instanceof Closeable) {
+                ((Closeable) pool).close();
+            }
+        }
+    }
+}
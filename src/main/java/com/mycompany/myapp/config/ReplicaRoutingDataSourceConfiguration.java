@@ -0,0 +1,73 @@
+package com.mycompany.myapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the {@link DataSource} of {@code spring.datasource} by a {@link ReplicaRoutingDataSource} over the
+ * primary and the replicas of {@link ReplicaRoutingProperties}.
+ * <p>
+ * The Liquibase migrations and the schedulers, which do not run in read-only transactions, keep using the primary.
+ */
+@Configuration
+@EnableConfigurationProperties({DataSourceProperties.class, ReplicaRoutingProperties.class})
+@ConditionalOnProperty(prefix = "application.datasource.replica-routing", name = "enabled", havingValue = "true")
+public class ReplicaRoutingDataSourceConfiguration {
+
+    private static final String HIKARI_PREFIX = "spring.datasource.hikari";
+
+    private final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSourceConfiguration.class);
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties dataSourceProperties,
+                                                             ReplicaRoutingProperties properties,
+                                                             Environment environment, MeterRegistry meterRegistry) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind(HIKARI_PREFIX, Bindable.ofInstance(primary));
+        primary.setMetricRegistry(meterRegistry);
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (ReplicaRoutingProperties.Replica replica : properties.getReplicas()) {
+            HikariDataSource pool = new HikariDataSource();
+            binder.bind(HIKARI_PREFIX, Bindable.ofInstance(pool));
+            pool.setDriverClassName(primary.getDriverClassName());
+            pool.setJdbcUrl(replica.getUrl());
+            pool.setUsername(replica.getUsername() != null ? replica.getUsername() : primary.getUsername());
+            pool.setPassword(replica.getPassword() != null ? replica.getPassword() : primary.getPassword());
+            if (replica.getMaximumPoolSize() != null) {
+                pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+            }
+            pool.setPoolName((primary.getPoolName() != null ? primary.getPoolName() : "Hikari") + "-"
+                + ReplicaRoutingDataSource.REPLICA_PREFIX + (replicas.size() + 1));
+            pool.setReadOnly(true);
+            pool.setMetricRegistry(meterRegistry);
+            log.debug("Routing the read-only transactions to {}", replica.getUrl());
+            replicas.add(pool);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, properties.getReadYourWritesSeconds() * 1000,
+            properties.getMaxTrackedUsers(), meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
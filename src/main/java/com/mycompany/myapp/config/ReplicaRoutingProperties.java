@@ -0,0 +1,98 @@
+package com.mycompany.myapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replicas receiving the read-only transactions.
+ * <p>
+ * Properties are configured in the {@code application.yml} file, under {@code application.datasource.replica-routing}.
+ * The replica pools are configured like the primary one, from {@code spring.datasource.hikari}.
+ */
+@ConfigurationProperties(prefix = "application.datasource.replica-routing", ignoreUnknownFields = false)
+public class ReplicaRoutingProperties {
+
+    private boolean enabled = false;
+
+    private long readYourWritesSeconds = 5;
+
+    private int maxTrackedUsers = 10000;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getReadYourWritesSeconds() {
+        return readYourWritesSeconds;
+    }
+
+    public void setReadYourWritesSeconds(long readYourWritesSeconds) {
+        this.readYourWritesSeconds = readYourWritesSeconds;
+    }
+
+    public int getMaxTrackedUsers() {
+        return maxTrackedUsers;
+    }
+
+    public void setMaxTrackedUsers(int maxTrackedUsers) {
+        this.maxTrackedUsers = maxTrackedUsers;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Connection to one replica. The credentials of the primary are used when none are given.
+     */
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private Integer maximumPoolSize;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public Integer getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(Integer maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.mycompany.myapp.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Cache} keeping a small on-heap L1, with W-TinyLFU eviction, in front of another cache.
+ * <p>
+ * The L1 holds references, so a hit costs no serialization nor copy. Writes and evictions are applied
+ * to both levels, so {@code @CacheEvict} and explicit evictions stay coherent.
+ * <p>
+ * Loads through {@link #get(Object, Callable)}, i.e. {@code @Cacheable(sync = true)}, are single-flight:
+ * concurrent misses for the same key wait for the first one instead of reaching the database. Once an
+ * L1 entry is older than its time to live, it is refreshed from the L2, or, when the L2 no longer holds
+ * it, still served during the staleness window while a single background refresh reloads it. A generation
+ * counter, bumped on every write and eviction, keeps a load racing with an eviction from caching a stale
+ * value in either level.
+ */
+public class TwoLevelCache implements Cache {
+
+    private final Logger log = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    private final Cache l2;
+
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Entry> l1;
+
+    private final long l1TimeToLiveNanos;
+
+    private final Executor refreshExecutor;
+
+    private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter l1Hits;
+
+    private final Counter l1StaleHits;
+
+    private final Counter l2Hits;
+
+    private final Counter misses;
+
+    private final Counter coalesced;
+
+    private final Timer loadTime;
+
+    private final Timer refreshTime;
+
+    public TwoLevelCache(Cache l2, long l1MaxEntries, Duration l1TimeToLive, MeterRegistry meterRegistry) {
+        this(l2, l1MaxEntries, l1TimeToLive, Duration.ZERO, Runnable::run, meterRegistry);
+    }
+
+    /**
+     * @param l2 the cache behind the L1.
+     * @param l1MaxEntries the maximum number of entries of the L1.
+     * @param l1TimeToLive the age after which an L1 entry is stale.
+     * @param staleWindow how long a stale L1 entry is still served while it is refreshed, {@link Duration#ZERO} to disable.
+     * @param refreshExecutor the executor running the background refreshes.
+     * @param meterRegistry the registry of the metrics.
+     */
+    public TwoLevelCache(Cache l2, long l1MaxEntries, Duration l1TimeToLive, Duration staleWindow,
+                         Executor refreshExecutor, MeterRegistry meterRegistry) {
+        this.l2 = l2;
+        this.l1TimeToLiveNanos = l1TimeToLive.toNanos();
+        this.refreshExecutor = refreshExecutor;
+        this.l1 = Caffeine.newBuilder()
+            .maximumSize(l1MaxEntries)
+            .expireAfterWrite(l1TimeToLive.plus(staleWindow))
+            .build();
+        this.l1Hits = gets("l1-hit", meterRegistry);
+        this.l1StaleHits = gets("l1-stale-hit", meterRegistry);
+        this.l2Hits = gets("l2-hit", meterRegistry);
+        this.misses = gets("miss", meterRegistry);
+        this.coalesced = Counter.builder("cache.two.level.coalesced")
+            .tag("cache", l2.getName())
+            .description("Loads which waited for a concurrent load of the same key")
+            .register(meterRegistry);
+        this.loadTime = Timer.builder("cache.two.level.load")
+            .tag("cache", l2.getName())
+            .description("Time spent loading values missing from both levels")
+            .register(meterRegistry);
+        this.refreshTime = Timer.builder("cache.two.level.refresh")
+            .tag("cache", l2.getName())
+            .description("Time spent refreshing stale values in the background")
+            .register(meterRegistry);
+    }
+
+    private Counter gets(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("cache.two.level.gets")
+            .tag("cache", l2.getName())
+            .tag("result", result)
+            .description("Lookups in the two-level caches")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return l2.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Entry entry = l1.getIfPresent(key);
+        if (entry != null && !entry.isStale(System.nanoTime())) {
+            l1Hits.increment();
+            return entry;
+        }
+        long lookupGeneration = generation.get();
+        ValueWrapper value = l2.get(key);
+        if (value != null) {
+            l2Hits.increment();
+            putLocal(key, value.get(), lookupGeneration);
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        Object result = value == null ? null : value.get();
+        if (result != null && type != null && !type.isInstance(result)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + result);
+        }
+        return (T) result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Entry entry = l1.getIfPresent(key);
+        if (entry != null) {
+            if (!entry.isStale(System.nanoTime())) {
+                l1Hits.increment();
+                return (T) entry.get();
+            }
+            long lookupGeneration = generation.get();
+            ValueWrapper cached = l2.get(key);
+            if (cached != null) {
+                l2Hits.increment();
+                putLocal(key, cached.get(), lookupGeneration);
+                return (T) cached.get();
+            }
+            l1StaleHits.increment();
+            refresh(key, valueLoader);
+            return (T) entry.get();
+        }
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> concurrent = inFlight.putIfAbsent(key, flight);
+        if (concurrent != null) {
+            coalesced.increment();
+            return (T) join(key, valueLoader, concurrent);
+        }
+        try {
+            long lookupGeneration = generation.get();
+            Object value;
+            ValueWrapper cached = l2.get(key);
+            if (cached != null) {
+                l2Hits.increment();
+                value = cached.get();
+                putLocal(key, value, lookupGeneration);
+            } else {
+                misses.increment();
+                value = load(key, valueLoader);
+                putBoth(key, value, lookupGeneration);
+            }
+            flight.complete(value);
+            return (T) value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        try {
+            return loadTime.recordCallable(valueLoader);
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    private void refresh(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, flight) != null) {
+            return;
+        }
+        long refreshGeneration = generation.get();
+        try {
+            refreshExecutor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    Object value = valueLoader.call();
+                    putBoth(key, value, refreshGeneration);
+                    flight.complete(value);
+                } catch (Throwable e) {
+                    log.warn("Could not refresh key {} of cache {}, the stale value expires at the end of the window", key, getName(), e);
+                    flight.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, flight);
+                    refreshTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Refresh of key {} of cache {} rejected, it will be retried on the next stale hit", key, getName());
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private Object join(Object key, Callable<?> valueLoader, CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ValueRetrievalException(key, valueLoader, cause);
+        }
+    }
+
+    private void putLocal(Object key, Object value, long expectedGeneration) {
+        if (generation.get() == expectedGeneration) {
+            l1.put(key, new Entry(value, System.nanoTime() + l1TimeToLiveNanos));
+        }
+    }
+
+    /**
+     * Caches a loaded value in both levels, unless a write or an eviction happened since the load started.
+     * An eviction racing with the puts bumps the generation before evicting, so it is either applied after
+     * the puts, or detected by the second check, which evicts the value again.
+     */
+    private void putBoth(Object key, Object value, long expectedGeneration) {
+        if (generation.get() != expectedGeneration) {
+            return;
+        }
+        l2.put(key, value);
+        putLocal(key, value, expectedGeneration);
+        if (generation.get() != expectedGeneration) {
+            l1.invalidate(key);
+            l2.evict(key);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        generation.incrementAndGet();
+        l2.put(key, value);
+        l1.put(key, new Entry(value, System.nanoTime() + l1TimeToLiveNanos));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        generation.incrementAndGet();
+        ValueWrapper existing = l2.putIfAbsent(key, value);
+        l1.invalidate(key);
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        generation.incrementAndGet();
+        l1.invalidate(key);
+        l2.evict(key);
+        l1.invalidate(key);
+    }
+
+    @Override
+    public void clear() {
+        generation.incrementAndGet();
+        l1.invalidateAll();
+        l2.clear();
+        l1.invalidateAll();
+    }
+
+    /**
+     * Value of the L1, with the time at which it becomes stale.
+     */
+    private static final class Entry implements ValueWrapper {
+
+        private final Object value;
+
+        private final long staleAt;
+
+        Entry(Object value, long staleAt) {
+            this.value = value;
+            this.staleAt = staleAt;
+        }
+
+        @Override
+        public Object get() {
+            return value;
+        }
+
+        boolean isStale(long now) {
+            return now - staleAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.mycompany.myapp.config;
+
+import com.mycompany.myapp.repository.UserLoginRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Puts an on-heap L1 in front of the Ehcache regions of the user caches.
+ * <p>
+ * Stale L1 entries are refreshed on a small pool of daemon threads. When its queue is full, stale
+ * entries are served without refresh until the end of their staleness window.
+ */
+@Configuration
+public class TwoLevelCacheConfiguration {
+
+    private static final Set<String> TWO_LEVEL_CACHES = new HashSet<>(Arrays.asList(
+        UserLoginRepository.USERS_BY_LOGIN_CACHE,
+        UserLoginRepository.USERS_BY_EMAIL_CACHE));
+
+    private static final int REFRESH_QUEUE_CAPACITY = 1000;
+
+    @Bean
+    public static BeanPostProcessor twoLevelCacheManagerPostProcessor(
+        ObjectProvider<MeterRegistry> meterRegistry,
+        @Value("${application.cache.user-l1.enabled:true}") boolean enabled,
+        @Value("${application.cache.user-l1.max-entries:500}") long maxEntries,
+        @Value("${application.cache.user-l1.time-to-live-seconds:60}") long timeToLiveSeconds,
+        @Value("${application.cache.user-l1.stale-seconds:30}") long staleSeconds,
+        @Value("${application.cache.user-l1.refresh-threads:2}") int refreshThreads) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (enabled && bean instanceof CacheManager && !(bean instanceof TwoLevelCacheManager)) {
+                    return new TwoLevelCacheManager((CacheManager) bean, maxEntries, Duration.ofSeconds(timeToLiveSeconds),
+                        Duration.ofSeconds(staleSeconds), refreshExecutor(refreshThreads), meterRegistry);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static Executor refreshExecutor(int threads) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("two-level-cache-refresh-");
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(REFRESH_QUEUE_CAPACITY), threadFactory);
+    }
+
+    /**
+     * {@link CacheManager} wrapping the user caches of another manager in {@link TwoLevelCache}s.
+     */
+    public static class TwoLevelCacheManager implements CacheManager {
+
+        private final Logger log = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+        private final CacheManager delegate;
+
+        private final long maxEntries;
+
+        private final Duration timeToLive;
+
+        private final Duration staleWindow;
+
+        private final Executor refreshExecutor;
+
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+
+        private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+        TwoLevelCacheManager(CacheManager delegate, long maxEntries, Duration timeToLive, Duration staleWindow,
+                             Executor refreshExecutor, ObjectProvider<MeterRegistry> meterRegistry) {
+            this.delegate = delegate;
+            this.maxEntries = maxEntries;
+            this.timeToLive = timeToLive;
+            this.staleWindow = staleWindow;
+            this.refreshExecutor = refreshExecutor;
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public Cache getCache(String name) {
+            if (!TWO_LEVEL_CACHES.contains(name)) {
+                return delegate.getCache(name);
+            }
+            TwoLevelCache cache = caches.get(name);
+            if (cache != null) {
+                return cache;
+            }
+            Cache l2 = delegate.getCache(name);
+            if (l2 == null) {
+                return null;
+            }
+            return caches.computeIfAbsent(name, key -> {
+                log.debug("Adding an on-heap L1 of {} entries in front of cache {}", maxEntries, name);
+                return new TwoLevelCache(l2, maxEntries, timeToLive, staleWindow, refreshExecutor, meterRegistry.getObject());
+            });
+        }
+
+        @Override
+        public Collection<String> getCacheNames() {
+            return delegate.getCacheNames();
+        }
+    }
+}
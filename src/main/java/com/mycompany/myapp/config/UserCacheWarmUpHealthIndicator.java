@@ -0,0 +1,32 @@
+package com.mycompany.myapp.config;
+
+import com.mycompany.myapp.service.UserCacheWarmUpService;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the instance as out of service until the user caches are warmed up, so that the load
+ * balancer only sends it traffic once the first requests will hit the caches.
+ */
+@Component
+public class UserCacheWarmUpHealthIndicator extends AbstractHealthIndicator {
+
+    private final UserCacheWarmUpService userCacheWarmUpService;
+
+    public UserCacheWarmUpHealthIndicator(UserCacheWarmUpService userCacheWarmUpService) {
+        super("User cache warm-up health check failed");
+        this.userCacheWarmUpService = userCacheWarmUpService;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        if (userCacheWarmUpService.isDone()) {
+            builder.up();
+        } else {
+            builder.outOfService();
+        }
+        builder.withDetail("loaded", userCacheWarmUpService.getLoaded());
+    }
+}
@@ -0,0 +1,25 @@
+package com.mycompany.myapp.config;
+
+import com.mycompany.myapp.web.rest.UserETagInterceptor;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Adds strong ETags to the reads of the account and of the users.
+ */
+@Configuration
+public class UserETagConfiguration implements WebMvcConfigurer {
+
+    private final UserETagInterceptor userETagInterceptor;
+
+    public UserETagConfiguration(UserETagInterceptor userETagInterceptor) {
+        this.userETagInterceptor = userETagInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(userETagInterceptor).addPathPatterns(UserETagInterceptor.ACCOUNT_PATH, UserETagInterceptor.USER_PATH);
+    }
+}
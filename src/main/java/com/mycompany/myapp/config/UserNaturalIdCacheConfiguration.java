@@ -0,0 +1,44 @@
+package com.mycompany.myapp.config;
+
+import com.mycompany.myapp.domain.UserLogin;
+
+import io.github.jhipster.config.JHipsterProperties;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Creates the natural-id cache region of {@link UserLogin}, which resolves a login to the id of the user.
+ * <p>
+ * The region is sized like the entity regions, from {@code jhipster.cache.ehcache}, unless it is one of
+ * the tiered regions of {@code application.cache.ehcache}.
+ */
+@Configuration
+public class UserNaturalIdCacheConfiguration {
+
+    /**
+     * Name of the region, as Hibernate derives it from the entity name.
+     */
+    public static final String USER_NATURAL_ID_REGION = UserLogin.class.getName() + "##NaturalId";
+
+    @Bean
+    public JCacheManagerCustomizer userNaturalIdCacheCustomizer(JHipsterProperties jHipsterProperties) {
+        JHipsterProperties.Cache.Ehcache ehcache = jHipsterProperties.getCache().getEhcache();
+        javax.cache.configuration.Configuration<Object, Object> configuration = Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ehcache.getTimeToLiveSeconds())))
+                .build());
+        return cacheManager -> {
+            if (cacheManager.getCache(USER_NATURAL_ID_REGION) == null) {
+                cacheManager.createCache(USER_NATURAL_ID_REGION, configuration);
+            }
+        };
+    }
+}
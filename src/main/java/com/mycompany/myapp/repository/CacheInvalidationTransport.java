@@ -0,0 +1,59 @@
+package com.mycompany.myapp.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Transport of the cache invalidations between the nodes of the cluster.
+ * <p>
+ * Implementations only need to deliver, within a bounded delay, the invalidations published by the
+ * other nodes; delivering an invalidation twice or delivering the node's own invalidations is harmless.
+ */
+public interface CacheInvalidationTransport {
+
+    /**
+     * Publishes invalidations to the other nodes, in the current transaction if any, so that they are
+     * delivered only if the change they invalidate is committed.
+     *
+     * @param invalidations the invalidations, published as one batch.
+     */
+    void publish(Collection<CacheInvalidation> invalidations);
+
+    /**
+     * Fetches the invalidations published by the other nodes since the previous poll.
+     *
+     * @return the next batch of invalidations, empty if there is none.
+     */
+    List<CacheInvalidation> poll();
+
+    /**
+     * An eviction of one key of one cache.
+     */
+    final class CacheInvalidation {
+
+        private final String cacheName;
+
+        private final String key;
+
+        public CacheInvalidation(String cacheName, String key) {
+            this.cacheName = cacheName;
+            this.key = key;
+        }
+
+        public String getCacheName() {
+            return cacheName;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public String toString() {
+            return "CacheInvalidation{" +
+                "cacheName='" + cacheName + '\'' +
+                ", key='" + key + '\'' +
+                "}";
+        }
+    }
+}
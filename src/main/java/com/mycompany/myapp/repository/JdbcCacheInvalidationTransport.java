@@ -0,0 +1,139 @@
+package com.mycompany.myapp.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Default {@link CacheInvalidationTransport}, needing no other infrastructure than the database: the
+ * invalidations are written to the {@code jhi_cache_invalidation} outbox table, in the transaction of the
+ * change, and every node polls it in batches from the last id it has seen.
+ * <p>
+ * As ids are allocated before the inserting transactions commit, a row may become visible after rows
+ * with higher ids: the rows created during the last {@code settle-seconds} below the last id seen are
+ * therefore checked again on every poll, separately so that they cannot delay the newer rows, and the
+ * ones not delivered yet are delivered. A starting node delivers the rows of the settle window too.
+ */
+@Repository
+public class JdbcCacheInvalidationTransport implements CacheInvalidationTransport {
+
+    private final Logger log = LoggerFactory.getLogger(JdbcCacheInvalidationTransport.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String origin;
+
+    private final int batchSize;
+
+    private final long retentionSeconds;
+
+    private final long settleSeconds;
+
+    private long lastSeenId = -1;
+
+    /**
+     * Creation dates of the rows delivered during the settle window, by id.
+     */
+    private final Map<Long, Long> delivered = new HashMap<>();
+
+    public JdbcCacheInvalidationTransport(JdbcTemplate jdbcTemplate,
+                                          @Value("${application.cache.invalidation.batch-size:500}") int batchSize,
+                                          @Value("${application.cache.invalidation.retention-seconds:3600}") long retentionSeconds,
+                                          @Value("${application.cache.invalidation.settle-seconds:10}") long settleSeconds) {
+        this(jdbcTemplate, UUID.randomUUID().toString(), batchSize, retentionSeconds, settleSeconds);
+    }
+
+    JdbcCacheInvalidationTransport(JdbcTemplate jdbcTemplate, String origin, int batchSize, long retentionSeconds, long settleSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.origin = origin;
+        this.batchSize = batchSize;
+        this.retentionSeconds = retentionSeconds;
+        this.settleSeconds = settleSeconds;
+    }
+
+    @Override
+    @Transactional
+    public void publish(Collection<CacheInvalidation> invalidations) {
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(
+            "insert into jhi_cache_invalidation (cache_name, cache_key, origin, created_date) values (?, ?, ?, ?)",
+            invalidations, batchSize, (ps, invalidation) -> {
+                ps.setString(1, invalidation.getCacheName());
+                ps.setString(2, invalidation.getKey());
+                ps.setString(3, origin);
+                ps.setTimestamp(4, now);
+            });
+    }
+
+    @Override
+    public synchronized List<CacheInvalidation> poll() {
+        Timestamp settled = Timestamp.from(Instant.now().minus(settleSeconds, ChronoUnit.SECONDS));
+        if (lastSeenId < 0) {
+            // The invalidations of the settle window may have been published while this node was starting
+            Long settledId = jdbcTemplate.queryForObject(
+                "select max(id) from jhi_cache_invalidation where created_date <= ?", Long.class, settled);
+            lastSeenId = settledId == null ? 0 : settledId;
+            log.debug("Polling cache invalidations after id {}", lastSeenId);
+        }
+        List<CacheInvalidation> invalidations = new ArrayList<>();
+        long previousLastSeenId = lastSeenId;
+        jdbcTemplate.query(
+            "select id, cache_name, cache_key, origin, created_date from jhi_cache_invalidation where id > ? order by id",
+            ps -> {
+                ps.setLong(1, previousLastSeenId);
+                ps.setMaxRows(batchSize);
+            },
+            rs -> {
+                lastSeenId = Math.max(lastSeenId, rs.getLong(1));
+                deliver(rs, invalidations);
+            });
+        // Rows committed after rows with higher ids, already passed by the query above
+        jdbcTemplate.query(
+            "select id, cache_name, cache_key, origin, created_date from jhi_cache_invalidation " +
+                "where id <= ? and created_date > ? order by id",
+            ps -> {
+                ps.setLong(1, previousLastSeenId);
+                ps.setTimestamp(2, settled);
+            },
+            rs -> {
+                if (!delivered.containsKey(rs.getLong(1))) {
+                    deliver(rs, invalidations);
+                }
+            });
+        delivered.values().removeIf(createdDate -> createdDate <= settled.getTime());
+        return invalidations;
+    }
+
+    private void deliver(ResultSet rs, List<CacheInvalidation> invalidations) throws SQLException {
+        delivered.put(rs.getLong(1), rs.getTimestamp(5).getTime());
+        if (!origin.equals(rs.getString(4))) {
+            invalidations.add(new CacheInvalidation(rs.getString(2), rs.getString(3)));
+        }
+    }
+
+    /**
+     * Deletes the invalidations which every node has had time to apply.
+     */
+    @Scheduled(cron = "0 */10 * * * ?")
+    public void removeOldInvalidations() {
+        int deleted = jdbcTemplate.update("delete from jhi_cache_invalidation where created_date < ?",
+            Timestamp.from(Instant.now().minus(retentionSeconds, ChronoUnit.SECONDS)));
+        log.debug("Deleted {} old cache invalidations", deleted);
+    }
+}
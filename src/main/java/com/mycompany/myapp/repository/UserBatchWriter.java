@@ -0,0 +1,182 @@
+package com.mycompany.myapp.repository;
+
+import com.mycompany.myapp.service.UserChangedEvent;
+import com.mycompany.myapp.service.UsersChangedEvent;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Inserts new users by JDBC batches, for the bulk operations.
+ * <p>
+ * Ids are allocated from {@code sequence_generator} by blocks, the way the pooled optimizer of Hibernate
+ * does. A user whose login or email already exists is skipped, and only existing authorities are granted,
+ * so that a bulk operation can be run again, e.g. after a failure.
+ * <p>
+ * A {@link UsersChangedEvent} is published with the inserted users of each batch, so that the negative lookups of
+ * their logins and emails, the user count and the caches of the other nodes are invalidated when it commits.
+ */
+@Repository
+public class UserBatchWriter {
+
+    private static final String INSERT_USER =
+        "insert into jhi_user (id, login, password_hash, first_name, last_name, email, image_url, activated, lang_key, " +
+            "created_by, created_date, last_modified_by, last_modified_date) " +
+            "select ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ? " +
+            "where not exists (select 1 from jhi_user where login = ? or lower(email) = ?)";
+
+    private static final String INSERT_AUTHORITY =
+        "insert into jhi_user_authority (user_id, authority_name) select ?, ? " +
+            "where exists (select 1 from jhi_user where id = ?) and exists (select 1 from jhi_authority where name = ?) " +
+            "and not exists (select 1 from jhi_user_authority where user_id = ? and authority_name = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final int idAllocationSize;
+
+    private long nextId;
+
+    private long lastAllocatedId = -1;
+
+    public UserBatchWriter(JdbcTemplate jdbcTemplate, ApplicationEventPublisher applicationEventPublisher,
+                           @Value("${application.import.id-allocation-size:50}") int idAllocationSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.idAllocationSize = idAllocationSize;
+    }
+
+    /**
+     * Inserts a batch of users, in one transaction.
+     *
+     * @param users the users, with their password already hashed.
+     * @param createdBy the login of the user running the bulk operation.
+     * @return the number of inserted users, the others already existed.
+     */
+    @Transactional
+    public int insert(List<NewUser> users, String createdBy) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> userRows = new ArrayList<>(users.size());
+        List<Object[]> authorityRows = new ArrayList<>();
+        List<UserChangedEvent> created = new ArrayList<>(users.size());
+        for (NewUser user : users) {
+            long id = allocateId();
+            String login = user.getLogin().toLowerCase(Locale.ENGLISH);
+            String email = user.getEmail() == null ? null : user.getEmail().toLowerCase(Locale.ENGLISH);
+            userRows.add(new Object[] { id, login, user.getPasswordHash(), user.getFirstName(), user.getLastName(), email,
+                user.getImageUrl(), user.isActivated(), user.getLangKey(), createdBy, now, createdBy, now, login, email });
+            for (String authority : user.getAuthorities()) {
+                authorityRows.add(new Object[] { id, authority, id, authority, id, authority });
+            }
+        }
+        int inserted = 0;
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_USER, userRows);
+        for (int i = 0; i < counts.length; i++) {
+            inserted += Math.max(counts[i], 0);
+            // Drivers may not report the count of a batched row: invalidating a skipped user is harmless
+            if (counts[i] != 0) {
+                created.add(new UserChangedEvent((String) userRows.get(i)[1], (String) userRows.get(i)[5]));
+            }
+        }
+        if (!authorityRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_AUTHORITY, authorityRows);
+        }
+        if (!created.isEmpty()) {
+            applicationEventPublisher.publishEvent(new UsersChangedEvent(created));
+        }
+        return inserted;
+    }
+
+    private synchronized long allocateId() {
+        if (lastAllocatedId < 0 || nextId > lastAllocatedId) {
+            lastAllocatedId = jdbcTemplate.queryForObject("select nextval('sequence_generator')", Long.class);
+            nextId = lastAllocatedId - idAllocationSize + 1;
+        }
+        return nextId++;
+    }
+
+    /**
+     * A user to insert.
+     */
+    public static class NewUser {
+
+        private final String login;
+
+        private final String passwordHash;
+
+        private final String firstName;
+
+        private final String lastName;
+
+        private final String email;
+
+        private final String imageUrl;
+
+        private final boolean activated;
+
+        private final String langKey;
+
+        private final Set<String> authorities;
+
+        public NewUser(String login, String passwordHash, String firstName, String lastName, String email, String imageUrl,
+                       boolean activated, String langKey, Set<String> authorities) {
+            this.login = login;
+            this.passwordHash = passwordHash;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.email = email;
+            this.imageUrl = imageUrl;
+            this.activated = activated;
+            this.langKey = langKey;
+            this.authorities = authorities == null ? Collections.emptySet() : authorities;
+        }
+
+        public String getLogin() {
+            return login;
+        }
+
+        public String getPasswordHash() {
+            return passwordHash;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getImageUrl() {
+            return imageUrl;
+        }
+
+        public boolean isActivated() {
+            return activated;
+        }
+
+        public String getLangKey() {
+            return langKey;
+        }
+
+        public Set<String> getAuthorities() {
+            return authorities;
+        }
+    }
+}
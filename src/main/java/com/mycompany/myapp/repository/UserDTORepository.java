@@ -0,0 +1,144 @@
+package com.mycompany.myapp.repository;
+
+import com.mycompany.myapp.config.Constants;
+import com.mycompany.myapp.service.dto.UserDTO;
+import com.mycompany.myapp.web.rest.errors.BadRequestAlertException;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Reads the managed users straight into {@link UserDTO}s, without loading any entity.
+ * <p>
+ * A page costs two statements: one for the users, and one {@code IN} query for the authorities of the
+ * whole page. Nothing is attached to the persistence context, so its memory does not grow with the pages.
+ * The total is not counted here, see {@code TotalCountService}.
+ */
+@Repository
+public class UserDTORepository {
+
+    private static final Map<String, String> SORT_COLUMNS;
+
+    static {
+        Map<String, String> columns = new HashMap<>();
+        columns.put("id", "id");
+        columns.put("login", "login");
+        columns.put("firstName", "first_name");
+        columns.put("lastName", "last_name");
+        columns.put("email", "email");
+        columns.put("imageUrl", "image_url");
+        columns.put("activated", "activated");
+        columns.put("langKey", "lang_key");
+        columns.put("createdBy", "created_by");
+        columns.put("createdDate", "created_date");
+        columns.put("lastModifiedBy", "last_modified_by");
+        columns.put("lastModifiedDate", "last_modified_date");
+        SORT_COLUMNS = Collections.unmodifiableMap(columns);
+    }
+
+    private static final String USERS_QUERY =
+        "select id, login, first_name, last_name, email, image_url, activated, lang_key, " +
+            "created_by, created_date, last_modified_by, last_modified_date from jhi_user where login <> ?";
+
+    private static final String AUTHORITIES_QUERY =
+        "select user_id, authority_name from jhi_user_authority where user_id in (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public UserDTORepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Finds a page of the users, without the anonymous user.
+     *
+     * @param pageable the page, sorted by properties of {@link UserDTO}.
+     * @return the users of the page, with their authorities.
+     */
+    public Slice<UserDTO> findAllManaged(Pageable pageable) {
+        String sql = USERS_QUERY + orderBy(pageable.getSort()) + " limit ? offset ?";
+        List<UserDTO> users = jdbcTemplate.query(sql, (resultSet, rowNum) -> toUserDTO(resultSet),
+            Constants.ANONYMOUS_USER, pageable.getPageSize() + 1, pageable.getOffset());
+        boolean hasNext = users.size() > pageable.getPageSize();
+        if (hasNext) {
+            users = users.subList(0, pageable.getPageSize());
+        }
+        loadAuthorities(users);
+        return new SliceImpl<>(users, pageable, hasNext);
+    }
+
+    private void loadAuthorities(List<UserDTO> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Map<Long, UserDTO> usersById = new LinkedHashMap<>();
+        for (UserDTO user : users) {
+            user.setAuthorities(new HashSet<>());
+            usersById.put(user.getId(), user);
+        }
+        namedParameterJdbcTemplate.query(AUTHORITIES_QUERY, Collections.singletonMap("ids", new ArrayList<>(usersById.keySet())),
+            resultSet -> {
+                usersById.get(resultSet.getLong(1)).getAuthorities().add(resultSet.getString(2));
+            });
+    }
+
+    private static String orderBy(Sort sort) {
+        StringJoiner orderBy = new StringJoiner(", ", " order by ", "");
+        boolean sortedById = false;
+        for (Sort.Order order : sort) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new BadRequestAlertException("Unsupported sort property: " + order.getProperty(), "userManagement",
+                    "sortinvalid");
+            }
+            orderBy.add(column + (order.isAscending() ? " asc" : " desc"));
+            sortedById |= "id".equals(column);
+        }
+        if (!sortedById) {
+            orderBy.add("id asc");
+        }
+        return orderBy.toString();
+    }
+
+    private static UserDTO toUserDTO(ResultSet resultSet) throws SQLException {
+        UserDTO user = new UserDTO();
+        user.setId(resultSet.getLong("id"));
+        user.setLogin(resultSet.getString("login"));
+        user.setFirstName(resultSet.getString("first_name"));
+        user.setLastName(resultSet.getString("last_name"));
+        user.setEmail(resultSet.getString("email"));
+        user.setImageUrl(resultSet.getString("image_url"));
+        user.setActivated(resultSet.getBoolean("activated"));
+        user.setLangKey(resultSet.getString("lang_key"));
+        user.setCreatedBy(resultSet.getString("created_by"));
+        user.setCreatedDate(toInstant(resultSet.getTimestamp("created_date")));
+        user.setLastModifiedBy(resultSet.getString("last_modified_by"));
+        user.setLastModifiedDate(toInstant(resultSet.getTimestamp("last_modified_date")));
+        return user;
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+}
@@ -0,0 +1,98 @@
+package com.mycompany.myapp.repository;
+
+import com.mycompany.myapp.config.Constants;
+import com.mycompany.myapp.domain.UserLogin;
+
+import org.hibernate.CacheMode;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keyset (seek) pagination of the users, sorted by a unique indexed property then by id.
+ * <p>
+ * A page is read with a range condition on the sort key instead of an {@code OFFSET}, so deep pages cost
+ * the same as the first one. The ids of the page are selected first, then the users are fetched with their
+ * authorities, so that the limit is applied by the database and not in memory. The users are not put in the
+ * second-level cache: the listing may be read from a replica lagging behind the evictions of the primary.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class UserKeysetRepository {
+
+    /**
+     * Properties a keyset page can be sorted by: they are not null, and backed by an index.
+     */
+    public static final Set<String> SORT_PROPERTIES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList("id", "login")));
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Finds the users following, or preceding, a position in the listing.
+     *
+     * @param property the sort property, one of {@link #SORT_PROPERTIES}.
+     * @param ascending whether the listing is sorted in ascending order.
+     * @param afterId the id of the position, {@code null} to read from the start of the listing.
+     * @param afterValue the value of the sort property at the position.
+     * @param backward whether to read the users preceding the position, instead of the following ones.
+     * @param limit the maximum number of users to return.
+     * @return the users, in the order of the listing.
+     */
+    public List<UserLogin> findPage(String property, boolean ascending, Long afterId, String afterValue, boolean backward, int limit) {
+        if (!SORT_PROPERTIES.contains(property)) {
+            throw new IllegalArgumentException("Unsupported keyset sort property: " + property);
+        }
+        boolean forward = ascending != backward;
+        String comparison = forward ? ">" : "<";
+        String direction = forward ? "asc" : "desc";
+        StringBuilder jpql = new StringBuilder("select u.id from UserLogin u where u.login <> :anonymous");
+        if (afterId != null) {
+            if ("id".equals(property)) {
+                jpql.append(" and u.id ").append(comparison).append(" :afterId");
+            } else {
+                jpql.append(" and (u.").append(property).append(' ').append(comparison).append(" :afterValue")
+                    .append(" or (u.").append(property).append(" = :afterValue and u.id ").append(comparison).append(" :afterId))");
+            }
+        }
+        jpql.append(" order by ");
+        if (!"id".equals(property)) {
+            jpql.append("u.").append(property).append(' ').append(direction).append(", ");
+        }
+        jpql.append("u.id ").append(direction);
+
+        TypedQuery<Long> idQuery = entityManager.createQuery(jpql.toString(), Long.class)
+            .setParameter("anonymous", Constants.ANONYMOUS_USER)
+            .setMaxResults(limit);
+        if (afterId != null) {
+            idQuery.setParameter("afterId", afterId);
+            if (!"id".equals(property)) {
+                idQuery.setParameter("afterValue", afterValue);
+            }
+        }
+        List<Long> ids = idQuery.getResultList();
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (backward) {
+            Collections.reverse(ids);
+        }
+        List<UserLogin> users = entityManager.createQuery(
+            "select distinct u from UserLogin u left join fetch u.authorities where u.id in :ids", UserLogin.class)
+            .setParameter("ids", ids)
+            .setHint(QueryHints.HINT_CACHE_MODE, CacheMode.GET)
+            .getResultList();
+        users.sort(Comparator.comparingInt(user -> ids.indexOf(user.getId())));
+        return users;
+    }
+}
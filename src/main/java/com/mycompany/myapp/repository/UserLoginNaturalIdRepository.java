@@ -0,0 +1,27 @@
+package com.mycompany.myapp.repository;
+
+import com.mycompany.myapp.domain.UserLogin;
+
+import java.util.Optional;
+
+/**
+ * Lookups of the users by login through the Hibernate natural-id API, mixed into {@link UserLoginRepository}.
+ * <p>
+ * The methods of this fragment take precedence over the derived queries of the same name, so every lookup
+ * by login resolves the id from the {@code UserLogin##NaturalId} cache region, then the user from the
+ * entity region: once the regions are warm, no SQL is issued.
+ */
+public interface UserLoginNaturalIdRepository {
+
+    /**
+     * @param login the lower-cased login.
+     * @return the user, if any.
+     */
+    Optional<UserLogin> findOneByLogin(String login);
+
+    /**
+     * @param login the lower-cased login.
+     * @return the user with their authorities initialized, if any.
+     */
+    Optional<UserLogin> findOneWithAuthoritiesByLogin(String login);
+}
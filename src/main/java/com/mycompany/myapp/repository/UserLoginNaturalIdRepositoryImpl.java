@@ -0,0 +1,43 @@
+package com.mycompany.myapp.repository;
+
+import com.mycompany.myapp.config.ReplicaRoutingDataSource;
+import com.mycompany.myapp.domain.UserLogin;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Optional;
+
+/**
+ * Implementation of {@link UserLoginNaturalIdRepository}, with {@code Session#bySimpleNaturalId}.
+ * <p>
+ * It requires {@code UserLogin#login} to be mapped with {@code @NaturalId(mutable = true)} and the entity
+ * with {@code @NaturalIdCache}. The lookups fill the second-level cache, so they read from the primary even when
+ * the replica routing is enabled.
+ */
+@Transactional(readOnly = true)
+public class UserLoginNaturalIdRepositoryImpl implements UserLoginNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<UserLogin> findOneByLogin(String login) {
+        return ReplicaRoutingDataSource.readFromPrimary(() -> entityManager.unwrap(Session.class)
+            .bySimpleNaturalId(UserLogin.class)
+            .loadOptional(login));
+    }
+
+    @Override
+    public Optional<UserLogin> findOneWithAuthoritiesByLogin(String login) {
+        return ReplicaRoutingDataSource.readFromPrimary(() -> {
+            Optional<UserLogin> user = findOneByLogin(login);
+            // Read from the collection region, like the entity
+            user.ifPresent(found -> Hibernate.initialize(found.getAuthorities()));
+            return user;
+        });
+    }
+}
@@ -0,0 +1,115 @@
+package com.mycompany.myapp.repository;
+
+import com.mycompany.myapp.service.UserChangedEvent;
+import com.mycompany.myapp.service.UsersChangedEvent;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Remembers, for a short time, the logins and emails which do not belong to any user.
+ * <p>
+ * {@link UserLoginRepository} only caches the users it finds in {@link UserLoginRepository#USERS_BY_LOGIN_CACHE}
+ * and {@link UserLoginRepository#USERS_BY_EMAIL_CACHE}, so lookups of unknown users always reach the
+ * database. A missing login or email is invalidated as soon as a user is created or renamed with it.
+ * A lookup racing with such a change is not remembered, thanks to a generation counter bumped on
+ * every invalidation.
+ */
+@Component
+public class UserNegativeLookupCache {
+
+    private static final String LOGIN_PREFIX = "login:";
+
+    private static final String EMAIL_PREFIX = "email:";
+
+    private final Cache<String, Boolean> missing;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter hits;
+
+    public UserNegativeLookupCache(@Value("${application.cache.user-negative-lookup.time-to-live-seconds:60}") long timeToLiveSeconds,
+                                   @Value("${application.cache.user-negative-lookup.max-entries:10000}") int maxEntries,
+                                   MeterRegistry meterRegistry) {
+        this.missing = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS)
+            .executor(Runnable::run)
+            .build();
+        this.hits = Counter.builder("cache.user.negative.lookup.hits")
+            .description("User lookups answered as missing without querying the database")
+            .register(meterRegistry);
+        Gauge.builder("cache.user.negative.lookup.size", missing, Cache::estimatedSize)
+            .description("Number of logins and emails known not to belong to any user")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Looks up a user by login, unless the login is known not to exist.
+     *
+     * @param login the lower-cased login.
+     * @param lookup the repository lookup, e.g. {@code () -> userLoginRepository.findOneByLogin(login)}.
+     * @param <T> the type of the user.
+     * @return the result of the lookup.
+     */
+    public <T> Optional<T> findByLogin(String login, Supplier<Optional<T>> lookup) {
+        return find(LOGIN_PREFIX + login, lookup);
+    }
+
+    /**
+     * Looks up a user by email, unless the email is known not to exist.
+     *
+     * @param email the email, case-insensitive.
+     * @param lookup the repository lookup, e.g. {@code () -> userLoginRepository.findOneByEmailIgnoreCase(email)}.
+     * @param <T> the type of the user.
+     * @return the result of the lookup.
+     */
+    public <T> Optional<T> findByEmail(String email, Supplier<Optional<T>> lookup) {
+        return find(EMAIL_PREFIX + email.toLowerCase(Locale.ENGLISH), lookup);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        generation.incrementAndGet();
+        if (event.getLogin() != null) {
+            missing.invalidate(LOGIN_PREFIX + event.getLogin());
+        }
+        if (event.getEmail() != null) {
+            missing.invalidate(EMAIL_PREFIX + event.getEmail().toLowerCase(Locale.ENGLISH));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsersChanged(UsersChangedEvent event) {
+        event.getUsers().forEach(this::onUserChanged);
+    }
+
+    private <T> Optional<T> find(String key, Supplier<Optional<T>> lookup) {
+        if (missing.getIfPresent(key) != null) {
+            hits.increment();
+            return Optional.empty();
+        }
+        long lookupGeneration = generation.get();
+        Optional<T> result = lookup.get();
+        if (!result.isPresent() && generation.get() == lookupGeneration) {
+            missing.put(key, Boolean.TRUE);
+            // An invalidation between the check and the put bumped the generation first
+            if (generation.get() != lookupGeneration) {
+                missing.invalidate(key);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,80 @@
+package com.mycompany.myapp.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link BCryptPasswordEncoder} whose work factor is calibrated on the current hardware.
+ * <p>
+ * {@link #upgradeEncoding(String)} reports the hashes made with a lower work factor, so that the
+ * authentication provider rehashes them on the next successful login. Hashes are never downgraded.
+ */
+public class AdaptiveBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveBCryptPasswordEncoder.class);
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private static final int CALIBRATION_COST = 8;
+
+    private static final int CALIBRATION_ROUNDS = 3;
+
+    private final int strength;
+
+    public AdaptiveBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) < strength;
+    }
+
+    /**
+     * Measures BCrypt on the current hardware and picks the highest work factor whose hash time stays
+     * within the target. Each work factor increment doubles the hash time.
+     *
+     * @param targetMillis the hash time to stay within, in milliseconds.
+     * @param minStrength the lowest work factor allowed, whatever the hardware.
+     * @param maxStrength the highest work factor allowed.
+     * @return the calibrated work factor.
+     */
+    public static int calibrateStrength(long targetMillis, int minStrength, int maxStrength) {
+        String salt = BCrypt.gensalt(CALIBRATION_COST);
+        BCrypt.hashpw("calibration", salt);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double millis = Math.max(best / 1_000_000d, 0.01d);
+        int strength = CALIBRATION_COST;
+        while (strength < maxStrength && millis * 2 <= targetMillis) {
+            millis *= 2;
+            strength++;
+        }
+        while (strength > CALIBRATION_COST && millis > targetMillis) {
+            millis /= 2;
+            strength--;
+        }
+        int calibrated = Math.max(minStrength, Math.min(maxStrength, strength));
+        log.info("Calibrated BCrypt work factor to {} (about {} ms per hash)", calibrated,
+            Math.round(millis * Math.pow(2, calibrated - strength)));
+        return calibrated;
+    }
+}
@@ -0,0 +1,150 @@
+package com.mycompany.myapp.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link PasswordEncoder} running the hashing of a delegate encoder on a dedicated, bounded pool.
+ * <p>
+ * BCrypt costs tens of milliseconds of CPU per call: running it on the web server worker threads lets
+ * a login storm starve every other endpoint. Here at most {@code threads} hashes run at the same time,
+ * at most {@code queueCapacity} wait for a thread, and any further call fails immediately with a
+ * {@link PasswordHashingRejectedException}, translated to a 503. A call which is not answered within
+ * {@code timeoutMillis}, queue wait included, is cancelled and fails the same way, so a stuck hash
+ * cannot hold a request thread forever.
+ * <p>
+ * The cancellation only frees the request thread: a queued call is dropped, but BCrypt ignores interrupts,
+ * so a hash already running keeps its pool thread until it completes. The timeout does not bound the pool,
+ * the calibrated work factor does: a hash takes about {@code target-millis}, far below the timeout.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Timer queueWait;
+
+    private final Timer encodeTime;
+
+    private final Timer matchesTime;
+
+    private final Counter rejected;
+
+    private final Counter timedOut;
+
+    private final long timeoutMillis;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long timeoutMillis,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"),
+            new ThreadPoolExecutor.AbortPolicy());
+        this.queueWait = Timer.builder("security.password.hashing.queue.wait")
+            .description("Time spent waiting for a password hashing thread")
+            .register(meterRegistry);
+        this.encodeTime = Timer.builder("security.password.hashing.time")
+            .tag("operation", "encode")
+            .description("Time spent hashing passwords")
+            .register(meterRegistry);
+        this.matchesTime = Timer.builder("security.password.hashing.time")
+            .tag("operation", "matches")
+            .description("Time spent hashing passwords")
+            .register(meterRegistry);
+        this.rejected = Counter.builder("security.password.hashing.rejected")
+            .description("Password hashing requests rejected because the pool was saturated")
+            .register(meterRegistry);
+        this.timedOut = Counter.builder("security.password.hashing.timeouts")
+            .description("Password hashing requests cancelled because they were not answered in time")
+            .register(meterRegistry);
+        Gauge.builder("security.password.hashing.queue.size", executor, e -> e.getQueue().size())
+            .description("Password hashing requests waiting for a thread")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword), encodeTime);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword), matchesTime);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * @return the number of threads hashing the passwords.
+     */
+    public int getThreads() {
+        return executor.getCorePoolSize();
+    }
+
+    /**
+     * @return the encoder doing the hashing, for bulk operations which run on their own pool.
+     */
+    public PasswordEncoder getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private <T> T submit(Callable<T> hashing, Timer hashTime) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return hashing.call();
+                } finally {
+                    hashTime.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException("The password hashing pool is saturated", e);
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Drops a queued call, a running BCrypt hash completes anyway
+            future.cancel(true);
+            timedOut.increment();
+            throw new PasswordHashingRejectedException("Password hashing did not complete in " + timeoutMillis + "ms", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingRejectedException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
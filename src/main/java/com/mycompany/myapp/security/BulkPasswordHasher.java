@@ -0,0 +1,75 @@
+package com.mycompany.myapp.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Hashes many passwords at once, for bulk provisioning.
+ * <p>
+ * The hashes are computed on a dedicated fork-join pool with the encoder behind the {@link BoundedPasswordEncoder}:
+ * a bulk operation must neither be rejected by the bounded pool of the logins, nor fill it. The pool takes the cores
+ * left by the logins pool by default, at least one, so that a provisioning run uses the whole machine without
+ * starving the logins. Hashes are returned in the order of the passwords.
+ */
+@Component
+public class BulkPasswordHasher implements DisposableBean {
+
+    private final Logger log = LoggerFactory.getLogger(BulkPasswordHasher.class);
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final ForkJoinPool pool;
+
+    private final Timer hashTime;
+
+    public BulkPasswordHasher(BoundedPasswordEncoder boundedPasswordEncoder,
+                              @Value("${application.security.password-hashing.bulk-parallelism:0}") int parallelism,
+                              MeterRegistry meterRegistry) {
+        this.passwordEncoder = boundedPasswordEncoder.getDelegate();
+        int poolSize = parallelism > 0 ? parallelism
+            : Math.max(1, Runtime.getRuntime().availableProcessors() - boundedPasswordEncoder.getThreads());
+        log.debug("Hashing bulk passwords on {} threads", poolSize);
+        this.pool = new ForkJoinPool(poolSize);
+        this.hashTime = Timer.builder("security.password.hashing.bulk.time")
+            .description("Time spent hashing passwords in bulk")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @param rawPasswords the passwords, {@code null} ones are kept {@code null}.
+     * @return the hashes, in the order of the passwords.
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        long start = System.nanoTime();
+        try {
+            return pool.submit(() -> rawPasswords.parallelStream()
+                .map(rawPassword -> rawPassword == null ? null : passwordEncoder.encode(rawPassword))
+                .collect(Collectors.toList()))
+                .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not hash passwords", e.getCause());
+        } finally {
+            hashTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+}
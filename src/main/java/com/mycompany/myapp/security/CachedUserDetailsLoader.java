@@ -0,0 +1,195 @@
+package com.mycompany.myapp.security;
+
+import com.mycompany.myapp.service.UserChangedEvent;
+import com.mycompany.myapp.service.UsersChangedEvent;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads the {@link UserDetails} used for authentication with a single query joining the authorities,
+ * outside of any transaction, and keeps them for a short time.
+ * <p>
+ * Entries are keyed by login, with an index of the lower-cased emails, both bounded Caffeine caches, and are
+ * evicted as soon as a {@link UserChangedEvent} is received for the user. A load racing with a change is not
+ * cached, thanks to a generation counter bumped on every eviction. A copy of the cached entry is returned, as the authentication
+ * manager erases the password of the returned details.
+ */
+@Component
+public class CachedUserDetailsLoader {
+
+    private static final String USER_WITH_AUTHORITIES_QUERY =
+        "select u.login, u.password_hash, u.activated, u.email, ua.authority_name " +
+            "from jhi_user u left join jhi_user_authority ua on ua.user_id = u.id ";
+
+    private final Logger log = LoggerFactory.getLogger(CachedUserDetailsLoader.class);
+
+    private final Cache<String, Entry> entries;
+
+    private final Cache<String, String> loginsByEmail;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CachedUserDetailsLoader(JdbcTemplate jdbcTemplate,
+                                   @Value("${application.security.user-details-cache.time-to-live-seconds:30}") long timeToLiveSeconds,
+                                   @Value("${application.security.user-details-cache.max-entries:10000}") int maxEntries,
+                                   MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entries = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS)
+            .executor(Runnable::run)
+            .build();
+        // An email left behind by an evicted user is checked against the entry it points to
+        this.loginsByEmail = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS)
+            .executor(Runnable::run)
+            .build();
+        Gauge.builder("security.user.details.cache.size", entries, Cache::estimatedSize)
+            .description("Number of user details cached for authentication")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Loads a user with their authorities, by login.
+     *
+     * @param login the lower-cased login.
+     * @return the user details, with {@link UserDetails#isEnabled()} reflecting the activation.
+     */
+    public Optional<UserDetails> loadByLogin(String login) {
+        return load(login, null, "where u.login = ?", login);
+    }
+
+    /**
+     * Loads a user with their authorities, by email.
+     *
+     * @param email the email, case-insensitive.
+     * @return the user details, with {@link UserDetails#isEnabled()} reflecting the activation.
+     */
+    public Optional<UserDetails> loadByEmail(String email) {
+        String lowercaseEmail = email.toLowerCase(Locale.ENGLISH);
+        return load(null, lowercaseEmail, "where lower(u.email) = ?", lowercaseEmail);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        generation.incrementAndGet();
+        evict(event.getLogin());
+        evict(event.getPreviousLogin());
+        evictEmail(event.getEmail());
+        evictEmail(event.getPreviousEmail());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsersChanged(UsersChangedEvent event) {
+        event.getUsers().forEach(this::onUserChanged);
+    }
+
+    /**
+     * Evicts a user, whatever the key they were loaded with.
+     *
+     * @param login the login of the user, may be {@code null}.
+     */
+    public void evict(String login) {
+        if (login == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        Entry entry = entries.asMap().remove(login);
+        if (entry != null && entry.email != null) {
+            loginsByEmail.asMap().remove(entry.email, login);
+        }
+    }
+
+    private void evictEmail(String email) {
+        if (email != null) {
+            evict(loginsByEmail.asMap().remove(email.toLowerCase(Locale.ENGLISH)));
+        }
+    }
+
+    private Optional<UserDetails> load(String login, String email, String where, String value) {
+        String cachedLogin = login != null ? login : loginsByEmail.getIfPresent(email);
+        Entry entry = cachedLogin == null ? null : entries.getIfPresent(cachedLogin);
+        if (entry != null && (email == null || email.equals(entry.email))) {
+            return Optional.of(User.withUserDetails(entry.userDetails).build());
+        }
+        long loadGeneration = generation.get();
+        Entry loaded = query(where, value);
+        if (loaded == null) {
+            return Optional.empty();
+        }
+        // A change committed during the query may not be part of the result: it is not cached then
+        if (generation.get() == loadGeneration) {
+            String loadedLogin = loaded.userDetails.getUsername();
+            entries.put(loadedLogin, loaded);
+            if (loaded.email != null) {
+                loginsByEmail.put(loaded.email, loadedLogin);
+            }
+            // An eviction between the check and the puts bumped the generation first
+            if (generation.get() != loadGeneration) {
+                entries.asMap().remove(loadedLogin, loaded);
+            }
+        }
+        return Optional.of(User.withUserDetails(loaded.userDetails).build());
+    }
+
+    private Entry query(String where, String value) {
+        log.debug("Loading user details {} {}", where, value);
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        String[] user = new String[3];
+        boolean[] activated = new boolean[1];
+        jdbcTemplate.query(USER_WITH_AUTHORITIES_QUERY + where, rs -> {
+            user[0] = rs.getString(1);
+            user[1] = rs.getString(2);
+            activated[0] = rs.getBoolean(3);
+            user[2] = rs.getString(4);
+            String authority = rs.getString(5);
+            if (authority != null) {
+                authorities.add(new SimpleGrantedAuthority(authority));
+            }
+        }, value);
+        if (user[0] == null) {
+            return null;
+        }
+        UserDetails userDetails = User.withUsername(user[0])
+            .password(user[1])
+            .authorities(authorities)
+            .disabled(!activated[0])
+            .build();
+        return new Entry(userDetails, user[2] == null ? null : user[2].toLowerCase(Locale.ENGLISH));
+    }
+
+    private static final class Entry {
+
+        private final UserDetails userDetails;
+
+        private final String email;
+
+        private Entry(UserDetails userDetails, String email) {
+            this.userDetails = userDetails;
+            this.email = email;
+        }
+    }
+}
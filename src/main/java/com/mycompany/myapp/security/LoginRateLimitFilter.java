@@ -0,0 +1,224 @@
+package com.mycompany.myapp.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Rejects credential-stuffing bursts against {@code /api/authenticate} before any user lookup or
+ * password hashing happens, limiting the attempts per client IP address and per login.
+ * <p>
+ * It is ordered just before the Spring Security filter chain. The client IP address is the one resolved by the
+ * servlet container from the {@code X-Forwarded-For} header of trusted proxies, with {@code server.use-forward-headers},
+ * so that the load balancer itself is not throttled. Bodies larger than a login request are rejected with a 413.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String AUTHENTICATE_PATH = "/api/authenticate";
+
+    private static final int MAX_BODY_SIZE = 4096;
+
+    private final Logger log = LoggerFactory.getLogger(LoginRateLimitFilter.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final boolean enabled;
+
+    private final long windowSeconds;
+
+    private final SlidingWindowRateLimiter ipRateLimiter;
+
+    private final SlidingWindowRateLimiter loginRateLimiter;
+
+    private final Counter ipRejections;
+
+    private final Counter loginRejections;
+
+    public LoginRateLimitFilter(@Value("${application.security.login-rate-limit.enabled:true}") boolean enabled,
+                                @Value("${application.security.login-rate-limit.table-size:65536}") int tableSize,
+                                @Value("${application.security.login-rate-limit.window-seconds:60}") long windowSeconds,
+                                @Value("${application.security.login-rate-limit.max-attempts-per-ip:30}") int maxAttemptsPerIp,
+                                @Value("${application.security.login-rate-limit.max-attempts-per-login:10}") int maxAttemptsPerLogin,
+                                MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.windowSeconds = windowSeconds;
+        this.ipRateLimiter = new SlidingWindowRateLimiter(tableSize, windowSeconds * 1000, maxAttemptsPerIp);
+        this.loginRateLimiter = new SlidingWindowRateLimiter(tableSize, windowSeconds * 1000, maxAttemptsPerLogin);
+        this.ipRejections = Counter.builder("security.login.rate.limited")
+            .tag("key", "ip")
+            .description("Authentication attempts rejected by the login rate limiter")
+            .register(meterRegistry);
+        this.loginRejections = Counter.builder("security.login.rate.limited")
+            .tag("key", "login")
+            .description("Authentication attempts rejected by the login rate limiter")
+            .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+            || !HttpMethod.POST.matches(request.getMethod())
+            || !AUTHENTICATE_PATH.equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        if (!ipRateLimiter.tryAcquire(request.getRemoteAddr())) {
+            log.debug("Too many authentication attempts from {}", request.getRemoteAddr());
+            ipRejections.increment();
+            reject(response);
+            return;
+        }
+        if (request.getContentLengthLong() > MAX_BODY_SIZE) {
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(), "Authentication request too large");
+            return;
+        }
+        // One byte more than allowed, to tell a body of the maximum size from a larger one
+        byte[] body = StreamUtils.copyToByteArray(new BoundedInputStream(request.getInputStream(), MAX_BODY_SIZE + 1));
+        if (body.length > MAX_BODY_SIZE) {
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(), "Authentication request too large");
+            return;
+        }
+        String login = readLogin(body);
+        if (login != null && !loginRateLimiter.tryAcquire(login)) {
+            log.debug("Too many authentication attempts for user {}", login);
+            loginRejections.increment();
+            reject(response);
+            return;
+        }
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    private String readLogin(byte[] body) {
+        try {
+            JsonNode username = objectMapper.readTree(body).get("username");
+            return username == null || !username.isTextual() ? null : username.asText().toLowerCase(Locale.ENGLISH);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(windowSeconds));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many authentication attempts");
+    }
+
+    /**
+     * Stops reading the request body after a fixed number of bytes, a login request being small.
+     */
+    private static class BoundedInputStream extends InputStream {
+
+        private final InputStream delegate;
+
+        private int remaining;
+
+        BoundedInputStream(InputStream delegate, int limit) {
+            this.delegate = delegate;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            remaining--;
+            return delegate.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = delegate.read(b, off, Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+
+    /**
+     * Replays the request body already read by the filter.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream inputStream = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+
+                @Override
+                public boolean isFinished() {
+                    return inputStream.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // The whole body is already in memory: it is available at once
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return inputStream.read();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.mycompany.myapp.security;
+
+import com.mycompany.myapp.service.UserCacheEvictionService;
+import com.mycompany.myapp.service.UserCacheEvictionService.EvictedUser;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stores the password hash rehashed by the authentication provider after a successful login, when
+ * {@link AdaptiveBCryptPasswordEncoder#upgradeEncoding(String)} reports a lower work factor.
+ * <p>
+ * The hash is written with SQL, so the user is evicted once committed from every cache holding it, by login,
+ * by email and from the Hibernate second-level cache.
+ */
+@Component
+public class PasswordRehashService implements UserDetailsPasswordService {
+
+    private final Logger log = LoggerFactory.getLogger(PasswordRehashService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final UserCacheEvictionService userCacheEvictionService;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final Counter rehashed;
+
+    public PasswordRehashService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 UserCacheEvictionService userCacheEvictionService,
+                                 ApplicationEventPublisher applicationEventPublisher, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userCacheEvictionService = userCacheEvictionService;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.rehashed = Counter.builder("security.password.rehashed")
+            .description("Password hashes upgraded to the calibrated work factor on login")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        EvictedUser rehashedUser = transactionTemplate.execute(status -> {
+            List<EvictedUser> found = jdbcTemplate.query("select id, login, email from jhi_user where login = ?",
+                (rs, rowNum) -> new EvictedUser(rs.getLong(1), rs.getString(2), rs.getString(3)), user.getUsername());
+            if (found.isEmpty()) {
+                return null;
+            }
+            jdbcTemplate.update("update jhi_user set password_hash = ? where id = ?", newPassword, found.get(0).getId());
+            applicationEventPublisher.publishEvent(found.get(0).toEvent());
+            return found.get(0);
+        });
+        if (rehashedUser != null) {
+            log.debug("Rehashed the password of user {}", user.getUsername());
+            rehashed.increment();
+            userCacheEvictionService.evict(Collections.singletonList(rehashedUser));
+        }
+        return User.withUserDetails(user).password(newPassword).build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.mycompany.myapp.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free, fixed-memory rate limiter counting attempts per key over a sliding window.
+ * <p>
+ * Keys are hashed into a fixed-size table, so memory stays bounded whatever the number of distinct
+ * keys; colliding keys share a slot, which can only make the limit stricter. Each slot is a single
+ * {@code long} packing the current window index and the attempt counts of the current and previous
+ * windows, updated with a compare-and-set. The attempts in the sliding window are estimated by
+ * weighting the previous window count by the part of it still covered by the sliding window.
+ */
+public class SlidingWindowRateLimiter {
+
+    private static final long COUNT_MASK = 0xFFFFL;
+
+    private final AtomicLongArray slots;
+
+    private final int mask;
+
+    private final long windowMillis;
+
+    private final int maxAttempts;
+
+    /**
+     * @param tableSize number of slots, rounded up to a power of two.
+     * @param windowMillis length of the sliding window, in milliseconds.
+     * @param maxAttempts attempts allowed per key within the window, at most 65535.
+     */
+    public SlidingWindowRateLimiter(int tableSize, long windowMillis, int maxAttempts) {
+        int size = Integer.highestOneBit(Math.max(1, tableSize - 1)) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.windowMillis = windowMillis;
+        this.maxAttempts = (int) Math.min(maxAttempts, COUNT_MASK);
+    }
+
+    /**
+     * Records an attempt for a key, unless the key is over the limit.
+     *
+     * @param key the key, e.g. a client IP address or a login.
+     * @return {@code true} if the attempt is allowed, {@code false} if it must be rejected.
+     */
+    public boolean tryAcquire(String key) {
+        return tryAcquire(key, System.currentTimeMillis());
+    }
+
+    boolean tryAcquire(String key, long now) {
+        int index = slot(key);
+        long window = now / windowMillis;
+        double previousWeight = 1d - (double) (now % windowMillis) / windowMillis;
+        while (true) {
+            long packed = slots.get(index);
+            long slotWindow = packed >>> 32;
+            long current = (packed >>> 16) & COUNT_MASK;
+            long previous = packed & COUNT_MASK;
+            if (slotWindow != (window & 0xFFFFFFFFL)) {
+                previous = slotWindow == ((window - 1) & 0xFFFFFFFFL) ? current : 0;
+                current = 0;
+            }
+            if (previous * previousWeight + current >= maxAttempts) {
+                return false;
+            }
+            long updated = ((window & 0xFFFFFFFFL) << 32) | ((current + 1) << 16) | previous;
+            if (slots.compareAndSet(index, packed, updated)) {
+                return true;
+            }
+        }
+    }
+
+    private int slot(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        return hash & mask;
+    }
+}
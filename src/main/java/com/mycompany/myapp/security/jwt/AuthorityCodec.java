@@ -0,0 +1,148 @@
+package com.mycompany.myapp.security.jwt;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Encodes and decodes the authorities claim of the issued JWTs.
+ * <p>
+ * When the compact format is enabled, the authorities are written as a bitmask over the known
+ * authorities instead of a comma-separated list. The position of an authority in
+ * {@code application.security.jwt.known-authorities} is its bit, so this list must only ever be
+ * appended to. Both formats are always accepted when decoding, and both return shared
+ * {@link GrantedAuthority} instances, so that tokens issued before the rollover keep validating.
+ */
+@Component
+public class AuthorityCodec {
+
+    private static final int MAX_PRECOMPUTED_AUTHORITIES = 10;
+
+    private static final int MAX_CACHED_CLAIMS = 1024;
+
+    private final List<String> knownAuthorities;
+
+    private final Map<String, Integer> bits = new HashMap<>();
+
+    private final Map<String, GrantedAuthority> interned = new HashMap<>();
+
+    private final List<List<GrantedAuthority>> decodedMasks;
+
+    private final Map<String, List<GrantedAuthority>> decodedClaims = new ConcurrentHashMap<>();
+
+    private final boolean compact;
+
+    public AuthorityCodec(@Value("${application.security.jwt.known-authorities:ROLE_ADMIN,ROLE_USER}") List<String> knownAuthorities,
+                          @Value("${application.security.jwt.compact-authorities:false}") boolean compact) {
+        if (knownAuthorities.size() > Long.SIZE - 1) {
+            throw new IllegalArgumentException("At most " + (Long.SIZE - 1) + " authorities can be encoded in a bitmask");
+        }
+        this.knownAuthorities = Collections.unmodifiableList(new ArrayList<>(knownAuthorities));
+        this.compact = compact;
+        for (int i = 0; i < knownAuthorities.size(); i++) {
+            String authority = knownAuthorities.get(i);
+            bits.put(authority, i);
+            interned.put(authority, new SimpleGrantedAuthority(authority));
+        }
+        if (knownAuthorities.size() <= MAX_PRECOMPUTED_AUTHORITIES) {
+            int combinations = 1 << knownAuthorities.size();
+            List<List<GrantedAuthority>> masks = new ArrayList<>(combinations);
+            for (int mask = 0; mask < combinations; mask++) {
+                masks.add(buildMask(mask));
+            }
+            this.decodedMasks = masks;
+        } else {
+            this.decodedMasks = Collections.emptyList();
+        }
+    }
+
+    /**
+     * Encodes authorities to the value of the authorities claim.
+     *
+     * @param authorities the authorities of the authenticated user.
+     * @return a {@link Long} bitmask in compact mode when every authority is known, the
+     * comma-separated authorities otherwise.
+     */
+    public Object encode(Collection<? extends GrantedAuthority> authorities) {
+        if (compact) {
+            long mask = 0L;
+            boolean allKnown = true;
+            for (GrantedAuthority authority : authorities) {
+                Integer bit = bits.get(authority.getAuthority());
+                if (bit == null) {
+                    allKnown = false;
+                    break;
+                }
+                mask |= 1L << bit;
+            }
+            if (allKnown) {
+                return mask;
+            }
+        }
+        return authorities.stream()
+            .map(GrantedAuthority::getAuthority)
+            .collect(Collectors.joining(","));
+    }
+
+    /**
+     * Decodes the value of the authorities claim, in either format.
+     *
+     * @param claim a bitmask {@link Number} or a comma-separated {@link String}.
+     * @return the shared, unmodifiable list of authorities.
+     */
+    public List<GrantedAuthority> decode(Object claim) {
+        if (claim instanceof Number) {
+            return decode(((Number) claim).longValue());
+        }
+        return decode(claim == null ? "" : claim.toString());
+    }
+
+    /**
+     * Decodes a bitmask of the known authorities.
+     */
+    public List<GrantedAuthority> decode(long mask) {
+        if (mask >= 0 && mask < decodedMasks.size()) {
+            return decodedMasks.get((int) mask);
+        }
+        return buildMask(mask);
+    }
+
+    /**
+     * Decodes comma-separated authorities, as issued before the compact format.
+     */
+    public List<GrantedAuthority> decode(String claim) {
+        List<GrantedAuthority> authorities = decodedClaims.get(claim);
+        if (authorities != null) {
+            return authorities;
+        }
+        authorities = Collections.unmodifiableList(Arrays.stream(claim.split(","))
+            .filter(authority -> !authority.trim().isEmpty())
+            .map(authority -> interned.getOrDefault(authority, new SimpleGrantedAuthority(authority)))
+            .collect(Collectors.toList()));
+        if (decodedClaims.size() < MAX_CACHED_CLAIMS) {
+            decodedClaims.put(claim, authorities);
+        }
+        return authorities;
+    }
+
+    private List<GrantedAuthority> buildMask(long mask) {
+        List<GrantedAuthority> authorities = new ArrayList<>(Long.bitCount(mask));
+        for (int bit = 0; bit < knownAuthorities.size(); bit++) {
+            if ((mask & (1L << bit)) != 0) {
+                authorities.add(interned.get(knownAuthorities.get(bit)));
+            }
+        }
+        return Collections.unmodifiableList(authorities);
+    }
+}
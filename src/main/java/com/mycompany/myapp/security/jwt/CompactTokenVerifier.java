@@ -0,0 +1,305 @@
+package com.mycompany.myapp.security.jwt;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+
+/**
+ * Allocation-light verifier for the exact compact JWS tokens issued by {@link TokenProvider#createToken}.
+ * <p>
+ * Those tokens always have the {@code {"alg":"HS512"}} header and a flat payload made of the
+ * {@code sub}, {@code auth} and {@code exp} claims, {@code auth} being either a string or the bitmask
+ * written by {@link AuthorityCodec}, plus the optional {@code ep} claim of {@link TokenEpochRegistry}.
+ * Segments are decoded straight from the token characters, the HMAC is computed with a per-thread
+ * {@link Mac}, and the outcome is reported as a return code instead of an exception.
+ * <p>
+ * Anything this verifier does not recognize is reported as {@link #UNSUPPORTED}: the caller must then
+ * fall back to the jjwt parser, which stays the reference implementation.
+ */
+public final class CompactTokenVerifier {
+
+    /** The token is valid, its claims have been copied to the {@link Claims} holder. */
+    public static final int VALID = 0;
+
+    /** The token is not a compact JWS: it can be rejected without further checks. */
+    public static final int MALFORMED = 1;
+
+    /** The signature does not match: the token must be rejected. */
+    public static final int INVALID_SIGNATURE = 2;
+
+    /** The signature is valid but the token has expired: the token must be rejected. */
+    public static final int EXPIRED = 3;
+
+    /** The token is not in the format issued by this application: use the jjwt parser. */
+    public static final int UNSUPPORTED = 4;
+
+    private static final String AUTHORITIES_KEY = "auth";
+
+    static final String HS512_HEADER = "eyJhbGciOiJIUzUxMiJ9";
+
+    private static final int HS512_SIGNATURE_LENGTH = 64;
+
+    private static final byte[] DECODE_TABLE = new byte[128];
+
+    static {
+        for (int i = 0; i < DECODE_TABLE.length; i++) {
+            DECODE_TABLE[i] = -1;
+        }
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE_TABLE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final ThreadLocal<Mac> mac;
+
+    public CompactTokenVerifier(Key key) {
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac hmac = Mac.getInstance("HmacSHA512");
+                hmac.init(key);
+                return hmac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA512 is not available", e);
+            }
+        });
+    }
+
+    /**
+     * Verifies a token and extracts its claims.
+     *
+     * @param token the compact JWS.
+     * @param claims the holder receiving the claims, only filled when {@link #VALID} is returned.
+     * @return one of {@link #VALID}, {@link #MALFORMED}, {@link #INVALID_SIGNATURE}, {@link #EXPIRED}
+     * or {@link #UNSUPPORTED}.
+     */
+    public int verify(String token, Claims claims) {
+        if (token == null) {
+            return MALFORMED;
+        }
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            return MALFORMED;
+        }
+        if (firstDot != HS512_HEADER.length() || !token.startsWith(HS512_HEADER)) {
+            return UNSUPPORTED;
+        }
+
+        byte[] signature = decode(token, secondDot + 1, token.length());
+        if (signature == null) {
+            return MALFORMED;
+        }
+        if (signature.length != HS512_SIGNATURE_LENGTH) {
+            return UNSUPPORTED;
+        }
+        byte[] signedContent = new byte[secondDot];
+        for (int i = 0; i < secondDot; i++) {
+            signedContent[i] = (byte) token.charAt(i);
+        }
+        if (!MessageDigest.isEqual(mac.get().doFinal(signedContent), signature)) {
+            return INVALID_SIGNATURE;
+        }
+
+        byte[] payload = decode(token, firstDot + 1, secondDot);
+        if (payload == null || !readClaims(payload, claims)) {
+            return UNSUPPORTED;
+        }
+        if (claims.expiration * 1000L < System.currentTimeMillis()) {
+            return EXPIRED;
+        }
+        return VALID;
+    }
+
+    /**
+     * Decodes a base64url range of the token, without padding.
+     *
+     * @return the decoded bytes, or {@code null} if the range contains an illegal character.
+     */
+    private static byte[] decode(String token, int from, int to) {
+        int length = to - from;
+        if (length % 4 == 1) {
+            return null;
+        }
+        byte[] result = new byte[length * 3 / 4];
+        int buffer = 0;
+        int bits = 0;
+        int position = 0;
+        for (int i = from; i < to; i++) {
+            char c = token.charAt(i);
+            int value = c < DECODE_TABLE.length ? DECODE_TABLE[c] : -1;
+            if (value < 0) {
+                return null;
+            }
+            buffer = (buffer << 6) | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                result[position++] = (byte) (buffer >> bits);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads a flat JSON object made only of the {@code sub}, {@code auth}, {@code exp} and {@code ep} claims.
+     *
+     * @return {@code false} if the payload has any other shape.
+     */
+    private static boolean readClaims(byte[] json, Claims claims) {
+        claims.subject = null;
+        claims.authorities = null;
+        claims.authoritiesMask = -1L;
+        claims.expiration = -1L;
+        claims.epoch = -1;
+        int i = skipWhitespace(json, 0);
+        if (i >= json.length || json[i] != '{') {
+            return false;
+        }
+        i = skipWhitespace(json, i + 1);
+        while (i < json.length && json[i] != '}') {
+            int keyEnd = stringEnd(json, i);
+            if (keyEnd < 0) {
+                return false;
+            }
+            int keyStart = i + 1;
+            int keyLength = keyEnd - keyStart;
+            i = skipWhitespace(json, keyEnd + 1);
+            if (i >= json.length || json[i] != ':') {
+                return false;
+            }
+            i = skipWhitespace(json, i + 1);
+            if (i < json.length && json[i] >= '0' && json[i] <= '9') {
+                long value = 0L;
+                int digits = 0;
+                while (i < json.length && json[i] >= '0' && json[i] <= '9' && digits < 18) {
+                    value = value * 10 + (json[i++] - '0');
+                    digits++;
+                }
+                if (isKey(json, keyStart, keyLength, "exp") && claims.expiration < 0) {
+                    claims.expiration = value;
+                } else if (isKey(json, keyStart, keyLength, AUTHORITIES_KEY) && claims.authorities == null && claims.authoritiesMask < 0) {
+                    claims.authoritiesMask = value;
+                } else if (isKey(json, keyStart, keyLength, TokenEpochRegistry.EPOCH_KEY) && claims.epoch < 0 && value <= Integer.MAX_VALUE) {
+                    claims.epoch = (int) value;
+                } else {
+                    return false;
+                }
+            } else {
+                int valueEnd = stringEnd(json, i);
+                if (valueEnd < 0) {
+                    return false;
+                }
+                String value = new String(json, i + 1, valueEnd - i - 1, StandardCharsets.UTF_8);
+                if (isKey(json, keyStart, keyLength, "sub") && claims.subject == null) {
+                    claims.subject = value;
+                } else if (isKey(json, keyStart, keyLength, AUTHORITIES_KEY) && claims.authorities == null && claims.authoritiesMask < 0) {
+                    claims.authorities = value;
+                } else {
+                    return false;
+                }
+                i = valueEnd + 1;
+            }
+            i = skipWhitespace(json, i);
+            if (i < json.length && json[i] == ',') {
+                i = skipWhitespace(json, i + 1);
+            } else if (i >= json.length || json[i] != '}') {
+                return false;
+            }
+        }
+        if (claims.epoch < 0) {
+            claims.epoch = 0;
+        }
+        return i == json.length - 1 && claims.subject != null && (claims.authorities != null || claims.authoritiesMask >= 0)
+            && claims.expiration >= 0;
+    }
+
+    /**
+     * @return the index of the closing quote of the string starting at {@code start}, or {@code -1} if
+     * there is no such string or it contains escape sequences.
+     */
+    private static int stringEnd(byte[] json, int start) {
+        if (start >= json.length || json[start] != '"') {
+            return -1;
+        }
+        for (int i = start + 1; i < json.length; i++) {
+            if (json[i] == '"') {
+                return i;
+            }
+            if (json[i] == '\\') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isKey(byte[] json, int start, int length, String key) {
+        if (length != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (json[start + i] != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(byte[] json, int i) {
+        while (i < json.length && (json[i] == ' ' || json[i] == '\t' || json[i] == '\n' || json[i] == '\r')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Mutable holder for the claims of a verified token, meant to be reused by the calling thread.
+     */
+    public static final class Claims {
+
+        private String subject;
+
+        private String authorities;
+
+        private long authoritiesMask;
+
+        private long expiration;
+
+        private int epoch;
+
+        public String getSubject() {
+            return subject;
+        }
+
+        /**
+         * @return the comma-separated authorities, or {@code null} if the token uses the compact format.
+         */
+        public String getAuthorities() {
+            return authorities;
+        }
+
+        /**
+         * @return the authorities bitmask decoded by {@link AuthorityCodec}, or {@code -1} if the token
+         * uses comma-separated authorities.
+         */
+        public long getAuthoritiesMask() {
+            return authoritiesMask;
+        }
+
+        /**
+         * @return the {@code exp} claim, in seconds since the epoch.
+         */
+        public long getExpiration() {
+            return expiration;
+        }
+
+        /**
+         * @return the token epoch checked by {@link TokenEpochRegistry}, 0 if the token has none.
+         */
+        public int getEpoch() {
+            return epoch;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.mycompany.myapp.security.jwt;
+
+/**
+ * Published when the token epoch of a user changes, so that every {@link TokenEpochRegistry} rejects
+ * the tokens issued before the change.
+ */
+public class TokenEpochChangedEvent {
+
+    private final String login;
+
+    private final int epoch;
+
+    public TokenEpochChangedEvent(String login, int epoch) {
+        this.login = login;
+        this.epoch = epoch;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public int getEpoch() {
+        return epoch;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenEpochChangedEvent{" +
+            "login='" + login + '\'' +
+            ", epoch=" + epoch +
+            "}";
+    }
+}
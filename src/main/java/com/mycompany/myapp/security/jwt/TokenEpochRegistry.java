@@ -0,0 +1,92 @@
+package com.mycompany.myapp.security.jwt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of the per-user token epochs stored in {@code jhi_token_epoch}.
+ * <p>
+ * Only users whose epoch has been bumped at least once are kept, every other user being at epoch 0.
+ * The map is loaded once at startup and then kept up to date by the local {@link TokenEpochChangedEvent}s,
+ * and by the ones of the other nodes, received through the cache invalidation bus as invalidations of
+ * {@link #TOKEN_EPOCHS}, so checking a token is a single lock-free map lookup and never queries the database.
+ */
+@Component
+public class TokenEpochRegistry implements InitializingBean {
+
+    /**
+     * Name of the claim holding the epoch of the user when the token was issued. It is omitted for
+     * epoch 0, so tokens of users who never had their tokens revoked are unchanged.
+     */
+    public static final String EPOCH_KEY = "ep";
+
+    /**
+     * Name under which the epoch changes are propagated to the other nodes, keyed by login.
+     */
+    public static final String TOKEN_EPOCHS = "tokenEpochs";
+
+    private final Logger log = LoggerFactory.getLogger(TokenEpochRegistry.class);
+
+    private final Map<String, Integer> epochs = new ConcurrentHashMap<>();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TokenEpochRegistry(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        jdbcTemplate.query("select login, epoch from jhi_token_epoch where epoch > 0",
+            rs -> {
+                epochs.put(rs.getString(1), rs.getInt(2));
+            });
+        log.debug("Loaded the token epoch of {} users", epochs.size());
+    }
+
+    /**
+     * @param login the login of the user.
+     * @return the epoch to write in the tokens issued now for this user.
+     */
+    public int currentEpoch(String login) {
+        Integer epoch = epochs.get(login);
+        return epoch == null ? 0 : epoch;
+    }
+
+    /**
+     * @param login the subject of the token.
+     * @param tokenEpoch the epoch claim of the token, 0 if it has none.
+     * @return {@code false} if the tokens of the user have been revoked since the token was issued.
+     */
+    public boolean isCurrent(String login, int tokenEpoch) {
+        Integer epoch = epochs.get(login);
+        return epoch == null || tokenEpoch >= epoch;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTokenEpochChanged(TokenEpochChangedEvent event) {
+        log.debug("Revoking the tokens of user {} older than epoch {}", event.getLogin(), event.getEpoch());
+        epochs.merge(event.getLogin(), event.getEpoch(), Math::max);
+    }
+
+    /**
+     * Reloads the epoch of a user, changed by another node.
+     *
+     * @param login the login of the user.
+     */
+    public void refresh(String login) {
+        List<Integer> epoch = jdbcTemplate.queryForList("select epoch from jhi_token_epoch where login = ?", Integer.class, login);
+        if (!epoch.isEmpty()) {
+            log.debug("Revoking the tokens of user {} older than epoch {}, changed by another node", login, epoch.get(0));
+            epochs.merge(login, epoch.get(0), Math::max);
+        }
+    }
+}
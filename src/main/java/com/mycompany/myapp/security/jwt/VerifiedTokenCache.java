@@ -0,0 +1,213 @@
+package com.mycompany.myapp.security.jwt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of JWTs that have already been verified by the {@link TokenProvider}.
+ * <p>
+ * Entries are keyed by a SHA-256 digest of the token, so the raw token is never kept in memory, and
+ * expire at the token's own {@code exp} claim. A hit returns the {@link Authentication} built on the
+ * first verification, which saves the signature check, the claims parsing and the authorities
+ * rebuilding on every request re-using the same token. The token epoch is still checked against the
+ * {@link TokenEpochRegistry} on every hit, so a revoked token is rejected at once.
+ * <p>
+ * The cache is bounded by a Caffeine cache evicting in amortised constant time.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final Logger log = LoggerFactory.getLogger(VerifiedTokenCache.class);
+
+    private static final ObjectMapper PAYLOAD_READER = new ObjectMapper();
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final Cache<ByteBuffer, Entry> entries;
+
+    private final TokenEpochRegistry tokenEpochRegistry;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter evictions;
+
+    private final Counter revoked;
+
+    public VerifiedTokenCache(@Value("${application.security.token-cache.max-entries:10000}") int maxEntries,
+                              TokenEpochRegistry tokenEpochRegistry, MeterRegistry meterRegistry) {
+        this.tokenEpochRegistry = tokenEpochRegistry;
+        this.hits = Counter.builder("security.jwt.token.cache")
+            .tag("result", "hit")
+            .description("Requests authenticated from an already verified token")
+            .register(meterRegistry);
+        this.misses = Counter.builder("security.jwt.token.cache")
+            .tag("result", "miss")
+            .description("Requests whose token had to be verified")
+            .register(meterRegistry);
+        this.evictions = Counter.builder("security.jwt.token.cache.evictions")
+            .description("Verified tokens dropped before their expiration to keep the cache bounded")
+            .register(meterRegistry);
+        this.revoked = Counter.builder("security.jwt.token.cache.revoked")
+            .description("Cached tokens dropped because the tokens of their user were revoked")
+            .register(meterRegistry);
+        this.entries = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfter(new Expiry<ByteBuffer, Entry>() {
+
+                @Override
+                public long expireAfterCreate(ByteBuffer key, Entry entry, long currentTime) {
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.expiresAt - System.currentTimeMillis()));
+                }
+
+                @Override
+                public long expireAfterUpdate(ByteBuffer key, Entry entry, long currentTime, long currentDuration) {
+                    return expireAfterCreate(key, entry, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(ByteBuffer key, Entry entry, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .removalListener((ByteBuffer key, Entry entry, RemovalCause cause) -> {
+                if (cause == RemovalCause.SIZE) {
+                    evictions.increment();
+                }
+            })
+            // Maintenance on the calling thread, so the size stays bounded without a background thread
+            .executor(Runnable::run)
+            .build();
+        Gauge.builder("security.jwt.token.cache.size", entries, Cache::estimatedSize)
+            .description("Number of verified tokens currently cached")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the {@link Authentication} of an already verified, not yet expired token.
+     *
+     * @param jwt the raw token.
+     * @return the cached authentication, or {@code null} if the token must be verified.
+     */
+    public Authentication get(String jwt) {
+        ByteBuffer key = digest(jwt);
+        Entry entry = entries.getIfPresent(key);
+        if (entry == null || entry.expiresAt <= System.currentTimeMillis()) {
+            misses.increment();
+            return null;
+        }
+        if (!tokenEpochRegistry.isCurrent(entry.authentication.getName(), entry.epoch)) {
+            entries.invalidate(key);
+            revoked.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.authentication;
+    }
+
+    /**
+     * Caches the {@link Authentication} of a token which has just been successfully verified.
+     * <p>
+     * The entry lives until the token's {@code exp} claim; tokens without one are not cached.
+     *
+     * @param jwt the raw token.
+     * @param authentication the authentication built from the token.
+     */
+    public void put(String jwt, Authentication authentication) {
+        JsonNode payload = readPayload(jwt);
+        long expiresAt = readExpiration(payload);
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        entries.put(digest(jwt), new Entry(authentication, expiresAt, readEpoch(payload)));
+    }
+
+    /**
+     * Removes every cached token, e.g. when the signing key changes.
+     */
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    private static ByteBuffer digest(String jwt) {
+        MessageDigest messageDigest = SHA_256.get();
+        messageDigest.reset();
+        return ByteBuffer.wrap(messageDigest.digest(jwt.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * Reads the {@code exp} claim of a verified token, in milliseconds since the epoch.
+     */
+    static long readExpiration(String jwt) {
+        return readExpiration(readPayload(jwt));
+    }
+
+    private static long readExpiration(JsonNode payload) {
+        JsonNode exp = payload == null ? null : payload.get("exp");
+        return exp != null && exp.canConvertToLong() ? exp.asLong() * 1000L : 0L;
+    }
+
+    /**
+     * Reads the epoch claim of a verified token, 0 if it has none.
+     */
+    private static int readEpoch(JsonNode payload) {
+        JsonNode epoch = payload == null ? null : payload.get(TokenEpochRegistry.EPOCH_KEY);
+        return epoch != null && epoch.canConvertToInt() ? epoch.asInt() : 0;
+    }
+
+    private static JsonNode readPayload(String jwt) {
+        int start = jwt.indexOf('.');
+        int end = jwt.indexOf('.', start + 1);
+        if (start < 0 || end < 0) {
+            return null;
+        }
+        try {
+            return PAYLOAD_READER.readTree(Base64.getUrlDecoder().decode(jwt.substring(start + 1, end)));
+        } catch (Exception e) {
+            log.trace("Unable to read the payload of a verified token.", e);
+            return null;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Authentication authentication;
+
+        private final long expiresAt;
+
+        private final int epoch;
+
+        private Entry(Authentication authentication, long expiresAt, int epoch) {
+            this.authentication = authentication;
+            this.expiresAt = expiresAt;
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.config.Constants;
+import com.mycompany.myapp.security.SecurityUtils;
+import com.mycompany.myapp.service.UserCacheEvictionService.EvictedUser;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
+/**
+ * Service applying one administration operation to many users at once.
+ * <p>
+ * The users are processed by chunks of {@code application.bulk.chunk-size}, each chunk in its own
+ * transaction, with a few set-based statements rather than one entity load and flush per user. The
+ * changed users of a chunk are evicted from the caches in one pass once it is committed, and a single
+ * {@link UsersChangedEvent} notifies the other nodes. The tokens of the deactivated and deleted users,
+ * and of the users losing an authority, are revoked: their authorities are part of the tokens.
+ */
+@Service
+public class BulkUserOperationService {
+
+    /**
+     * Operations which can be applied in bulk.
+     */
+    public enum Operation {
+        ACTIVATE, DEACTIVATE, ADD_AUTHORITY, REMOVE_AUTHORITY, DELETE
+    }
+
+    /**
+     * Outcome of an operation for one user.
+     */
+    public enum ItemStatus {
+        /** The user was changed. */
+        CHANGED,
+        /** The user was already in the requested state. */
+        UNCHANGED,
+        /** No user has this login. */
+        NOT_FOUND,
+        /** The operation cannot be applied to this user, e.g. to deactivate the current user. */
+        SKIPPED,
+        /** The transaction of the chunk of this user failed, and was rolled back. */
+        FAILED
+    }
+
+    private static final String SELECT_USERS =
+        "select id, login, email, activated from jhi_user where login in (:logins)";
+
+    private final Logger log = LoggerFactory.getLogger(BulkUserOperationService.class);
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final UserCacheEvictionService userCacheEvictionService;
+
+    private final TokenEpochService tokenEpochService;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final int chunkSize;
+
+    private final int maxUsers;
+
+    public BulkUserOperationService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    UserCacheEvictionService userCacheEvictionService, TokenEpochService tokenEpochService,
+                                    ApplicationEventPublisher applicationEventPublisher,
+                                    @Value("${application.bulk.chunk-size:500}") int chunkSize,
+                                    @Value("${application.bulk.max-users:10000}") int maxUsers) {
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userCacheEvictionService = userCacheEvictionService;
+        this.tokenEpochService = tokenEpochService;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.chunkSize = chunkSize;
+        this.maxUsers = maxUsers;
+    }
+
+    /**
+     * Finds the logins of the users matching a filter, without the anonymous user.
+     *
+     * @param activated the activation of the users, or {@code null} for any.
+     * @param authority an authority of the users, or {@code null} for any.
+     * @param createdBefore the users created from this instant are excluded, {@code null} for no limit.
+     * @return the logins, ordered by id.
+     * @throws IllegalArgumentException if more than {@code application.bulk.max-users} users match.
+     */
+    public List<String> findLogins(Boolean activated, String authority, Instant createdBefore) {
+        StringJoiner where = new StringJoiner(" and ", " where ", "");
+        MapSqlParameterSource parameters = new MapSqlParameterSource("anonymous", Constants.ANONYMOUS_USER);
+        where.add("u.login <> :anonymous");
+        if (activated != null) {
+            where.add("u.activated = :activated");
+            parameters.addValue("activated", activated);
+        }
+        if (authority != null) {
+            where.add("exists (select 1 from jhi_user_authority ua where ua.user_id = u.id and ua.authority_name = :authority)");
+            parameters.addValue("authority", authority);
+        }
+        if (createdBefore != null) {
+            where.add("u.created_date < :createdBefore");
+            parameters.addValue("createdBefore", Timestamp.from(createdBefore));
+        }
+        parameters.addValue("limit", maxUsers + 1);
+        List<String> logins = namedParameterJdbcTemplate.queryForList(
+            "select u.login from jhi_user u" + where + " order by u.id limit :limit", parameters, String.class);
+        if (logins.size() > maxUsers) {
+            throw new IllegalArgumentException("More than " + maxUsers + " users match the filter");
+        }
+        return logins;
+    }
+
+    /**
+     * Applies an operation to users.
+     *
+     * @param operation the operation.
+     * @param logins the logins of the users.
+     * @param authority the authority to add or remove, only for {@link Operation#ADD_AUTHORITY} and
+     * {@link Operation#REMOVE_AUTHORITY}.
+     * @return the outcome for each login, in the order of the logins.
+     * @throws IllegalArgumentException if the authority is missing or unknown, or if there are too many logins.
+     */
+    public Result apply(Operation operation, List<String> logins, String authority) {
+        boolean authorityOperation = operation == Operation.ADD_AUTHORITY || operation == Operation.REMOVE_AUTHORITY;
+        if (authorityOperation && (authority == null || namedParameterJdbcTemplate.getJdbcTemplate().queryForObject(
+            "select count(*) from jhi_authority where name = ?", Long.class, authority) == 0)) {
+            throw new IllegalArgumentException("Unknown authority: " + authority);
+        }
+        Set<String> uniqueLogins = new LinkedHashSet<>();
+        for (String login : logins) {
+            uniqueLogins.add(login.toLowerCase(Locale.ENGLISH));
+        }
+        if (uniqueLogins.size() > maxUsers) {
+            throw new IllegalArgumentException("At most " + maxUsers + " users can be changed at once");
+        }
+        String currentLogin = SecurityUtils.getCurrentUserLogin().orElse(Constants.SYSTEM_ACCOUNT);
+        Map<String, ItemStatus> results = new LinkedHashMap<>();
+        List<String> chunk = new ArrayList<>(chunkSize);
+        for (String login : uniqueLogins) {
+            results.put(login, null);
+            chunk.add(login);
+            if (chunk.size() == chunkSize) {
+                applyToChunk(operation, chunk, authority, currentLogin, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            applyToChunk(operation, chunk, authority, currentLogin, results);
+        }
+        Result result = new Result(operation, results);
+        log.info("Applied {} to {} users: {}", operation, results.size(), result.getCounts());
+        return result;
+    }
+
+    private void applyToChunk(Operation operation, List<String> logins, String authority, String currentLogin,
+                              Map<String, ItemStatus> results) {
+        List<EvictedUser> changed;
+        try {
+            changed = transactionTemplate.execute(status -> applyToChunkInTransaction(operation, logins, authority,
+                currentLogin, results));
+        } catch (DataAccessException e) {
+            log.error("Could not apply {} to a chunk of {} users", operation, logins.size(), e);
+            for (String login : logins) {
+                results.put(login, ItemStatus.FAILED);
+            }
+            return;
+        }
+        userCacheEvictionService.evict(changed);
+    }
+
+    private List<EvictedUser> applyToChunkInTransaction(Operation operation, List<String> logins, String authority,
+                                                        String currentLogin, Map<String, ItemStatus> results) {
+        Map<String, TargetUser> users = new HashMap<>();
+        namedParameterJdbcTemplate.query(SELECT_USERS, Collections.singletonMap("logins", logins), resultSet -> {
+            TargetUser user = new TargetUser(new EvictedUser(resultSet.getLong(1), resultSet.getString(2),
+                resultSet.getString(3)), resultSet.getBoolean(4));
+            users.put(user.user.getLogin(), user);
+        });
+        List<TargetUser> candidates = new ArrayList<>(users.size());
+        for (String login : logins) {
+            TargetUser user = users.get(login);
+            if (user == null) {
+                results.put(login, ItemStatus.NOT_FOUND);
+            } else if (!isAllowed(operation, login, currentLogin)) {
+                results.put(login, ItemStatus.SKIPPED);
+            } else {
+                candidates.add(user);
+            }
+        }
+        List<EvictedUser> chunkChanged = applyToUsers(operation, candidates, authority, currentLogin);
+        Set<String> changedLogins = new HashSet<>();
+        for (EvictedUser user : chunkChanged) {
+            changedLogins.add(user.getLogin());
+        }
+        for (TargetUser candidate : candidates) {
+            String login = candidate.user.getLogin();
+            results.put(login, changedLogins.contains(login) ? ItemStatus.CHANGED : ItemStatus.UNCHANGED);
+        }
+        if (!chunkChanged.isEmpty()) {
+            applicationEventPublisher.publishEvent(new UsersChangedEvent(
+                chunkChanged.stream().map(EvictedUser::toEvent).collect(Collectors.toList())));
+        }
+        return chunkChanged;
+    }
+
+    private List<EvictedUser> applyToUsers(Operation operation, List<TargetUser> candidates, String authority, String currentLogin) {
+        List<EvictedUser> changed = new ArrayList<>(candidates.size());
+        if (candidates.isEmpty()) {
+            return changed;
+        }
+        Set<Long> withAuthority = Collections.emptySet();
+        if (operation == Operation.ADD_AUTHORITY || operation == Operation.REMOVE_AUTHORITY) {
+            withAuthority = new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                "select user_id from jhi_user_authority where authority_name = :authority and user_id in (:ids)",
+                new MapSqlParameterSource("authority", authority).addValue("ids", ids(candidates)), Long.class));
+        }
+        for (TargetUser candidate : candidates) {
+            boolean changes;
+            switch (operation) {
+                case ACTIVATE:
+                    changes = !candidate.activated;
+                    break;
+                case DEACTIVATE:
+                    changes = candidate.activated;
+                    break;
+                case ADD_AUTHORITY:
+                    changes = !withAuthority.contains(candidate.user.getId());
+                    break;
+                case REMOVE_AUTHORITY:
+                    changes = withAuthority.contains(candidate.user.getId());
+                    break;
+                default:
+                    changes = true;
+            }
+            if (changes) {
+                changed.add(candidate.user);
+            }
+        }
+        if (changed.isEmpty()) {
+            return changed;
+        }
+        List<Long> ids = changed.stream().map(EvictedUser::getId).collect(Collectors.toList());
+        MapSqlParameterSource parameters = new MapSqlParameterSource("ids", ids)
+            .addValue("authority", authority)
+            .addValue("modifiedBy", currentLogin)
+            .addValue("modifiedDate", Timestamp.from(Instant.now()));
+        switch (operation) {
+            case ACTIVATE:
+                namedParameterJdbcTemplate.update("update jhi_user set activated = true, activation_key = null, " +
+                    "last_modified_by = :modifiedBy, last_modified_date = :modifiedDate where id in (:ids)", parameters);
+                break;
+            case DEACTIVATE:
+                namedParameterJdbcTemplate.update("update jhi_user set activated = false, " +
+                    "last_modified_by = :modifiedBy, last_modified_date = :modifiedDate where id in (:ids)", parameters);
+                tokenEpochService.revokeTokens(logins(changed));
+                break;
+            case ADD_AUTHORITY:
+                namedParameterJdbcTemplate.update("insert into jhi_user_authority (user_id, authority_name) " +
+                    "select id, :authority from jhi_user where id in (:ids)", parameters);
+                touch(parameters);
+                break;
+            case REMOVE_AUTHORITY:
+                namedParameterJdbcTemplate.update(
+                    "delete from jhi_user_authority where authority_name = :authority and user_id in (:ids)", parameters);
+                touch(parameters);
+                tokenEpochService.revokeTokens(logins(changed));
+                break;
+            case DELETE:
+                tokenEpochService.revokeTokens(logins(changed));
+                namedParameterJdbcTemplate.update("delete from jhi_user_authority where user_id in (:ids)", parameters);
+                namedParameterJdbcTemplate.update("delete from jhi_user where id in (:ids)", parameters);
+                break;
+            default:
+                throw new IllegalStateException("Unsupported operation: " + operation);
+        }
+        return changed;
+    }
+
+    private void touch(MapSqlParameterSource parameters) {
+        namedParameterJdbcTemplate.update("update jhi_user set last_modified_by = :modifiedBy, " +
+            "last_modified_date = :modifiedDate where id in (:ids)", parameters);
+    }
+
+    /**
+     * The current user cannot lock themselves out, and the anonymous user is not managed.
+     */
+    private static boolean isAllowed(Operation operation, String login, String currentLogin) {
+        if (Constants.ANONYMOUS_USER.equals(login)) {
+            return false;
+        }
+        return operation == Operation.ACTIVATE || operation == Operation.ADD_AUTHORITY || !login.equals(currentLogin);
+    }
+
+    private static List<Long> ids(List<TargetUser> users) {
+        return users.stream().map(user -> user.user.getId()).collect(Collectors.toList());
+    }
+
+    private static List<String> logins(List<EvictedUser> users) {
+        return users.stream().map(EvictedUser::getLogin).collect(Collectors.toList());
+    }
+
+    private static class TargetUser {
+
+        private final EvictedUser user;
+
+        private final boolean activated;
+
+        TargetUser(EvictedUser user, boolean activated) {
+            this.user = user;
+            this.activated = activated;
+        }
+    }
+
+    /**
+     * Outcome of a bulk operation.
+     */
+    public static class Result {
+
+        private final Operation operation;
+
+        private final Map<ItemStatus, Long> counts;
+
+        private final List<Item> items;
+
+        Result(Operation operation, Map<String, ItemStatus> results) {
+            this.operation = operation;
+            this.counts = results.values().stream()
+                .collect(Collectors.groupingBy(status -> status, () -> new EnumMap<>(ItemStatus.class), Collectors.counting()));
+            this.items = results.entrySet().stream()
+                .map(entry -> new Item(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        public Map<ItemStatus, Long> getCounts() {
+            return counts;
+        }
+
+        public List<Item> getItems() {
+            return items;
+        }
+    }
+
+    /**
+     * Outcome of a bulk operation for one user.
+     */
+    public static class Item {
+
+        private final String login;
+
+        private final ItemStatus status;
+
+        Item(String login, ItemStatus status) {
+            this.login = login;
+            this.status = status;
+        }
+
+        public String getLogin() {
+            return login;
+        }
+
+        public ItemStatus getStatus() {
+            return status;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.config.Constants;
+import com.mycompany.myapp.repository.UserBatchWriter;
+import com.mycompany.myapp.security.BulkPasswordHasher;
+import com.mycompany.myapp.security.SecurityUtils;
+import com.mycompany.myapp.service.dto.UserDTO;
+import com.mycompany.myapp.service.util.RandomUtil;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Service creating many users at once, for bulk provisioning.
+ * <p>
+ * Creating the users one by one hashes each password serially, which dominates the time of a large
+ * provisioning. Here the work is split in two stages: all the passwords are first hashed in parallel by
+ * the {@link BulkPasswordHasher}, then the users are inserted by JDBC batches of
+ * {@code hibernate.jdbc.batch_size}, each batch in its own transaction. The time of each stage and the
+ * throughput are reported in the result and as metrics.
+ */
+@Service
+public class BulkUserService {
+
+    private final Logger log = LoggerFactory.getLogger(BulkUserService.class);
+
+    private final BulkPasswordHasher bulkPasswordHasher;
+
+    private final UserBatchWriter userBatchWriter;
+
+    private final int batchSize;
+
+    private final Timer hashTime;
+
+    private final Timer insertTime;
+
+    private final DistributionSummary throughput;
+
+    public BulkUserService(BulkPasswordHasher bulkPasswordHasher, UserBatchWriter userBatchWriter, MeterRegistry meterRegistry,
+                           @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:25}") int batchSize) {
+        this.bulkPasswordHasher = bulkPasswordHasher;
+        this.userBatchWriter = userBatchWriter;
+        this.batchSize = batchSize;
+        this.hashTime = Timer.builder("users.bulk.stage")
+            .tag("stage", "hash")
+            .description("Time spent in each stage of the bulk user creations")
+            .register(meterRegistry);
+        this.insertTime = Timer.builder("users.bulk.stage")
+            .tag("stage", "insert")
+            .description("Time spent in each stage of the bulk user creations")
+            .register(meterRegistry);
+        this.throughput = DistributionSummary.builder("users.bulk.throughput")
+            .baseUnit("records/s")
+            .description("Users created per second by the bulk user creations")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Creates users, skipping the ones whose login or email is already used.
+     *
+     * @param users the users to create.
+     * @param passwordOf gives the password of a user, a random one is generated when it is {@code null}.
+     * @param <T> the type of the users.
+     * @return the number of created users, and the time spent.
+     */
+    public <T extends UserDTO> BulkResult createUsers(List<T> users, Function<T, String> passwordOf) {
+        String createdBy = SecurityUtils.getCurrentUserLogin().orElse(Constants.SYSTEM_ACCOUNT);
+
+        long hashStart = System.nanoTime();
+        List<String> passwords = new ArrayList<>(users.size());
+        for (T user : users) {
+            String password = passwordOf.apply(user);
+            passwords.add(password == null ? RandomUtil.generatePassword() : password);
+        }
+        List<String> passwordHashes = bulkPasswordHasher.encodeAll(passwords);
+        long hashNanos = System.nanoTime() - hashStart;
+        hashTime.record(hashNanos, TimeUnit.NANOSECONDS);
+
+        long insertStart = System.nanoTime();
+        int created = 0;
+        List<UserBatchWriter.NewUser> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < users.size(); i++) {
+            batch.add(toNewUser(users.get(i), passwordHashes.get(i)));
+            if (batch.size() == batchSize || i == users.size() - 1) {
+                created += userBatchWriter.insert(batch, createdBy);
+                batch.clear();
+            }
+        }
+        long insertNanos = System.nanoTime() - insertStart;
+        insertTime.record(insertNanos, TimeUnit.NANOSECONDS);
+
+        BulkResult result = new BulkResult(created, users.size() - created, TimeUnit.NANOSECONDS.toMillis(hashNanos),
+            TimeUnit.NANOSECONDS.toMillis(insertNanos));
+        throughput.record(result.getRecordsPerSecond());
+        log.info("Created {} users in bulk, {} skipped, hashing took {} ms and inserting {} ms ({} records/s)",
+            result.getCreated(), result.getSkipped(), result.getHashMillis(), result.getInsertMillis(),
+            Math.round(result.getRecordsPerSecond()));
+        return result;
+    }
+
+    private static UserBatchWriter.NewUser toNewUser(UserDTO user, String passwordHash) {
+        String langKey = user.getLangKey() == null ? Constants.DEFAULT_LANGUAGE : user.getLangKey();
+        return new UserBatchWriter.NewUser(user.getLogin(), passwordHash, user.getFirstName(), user.getLastName(),
+            user.getEmail(), user.getImageUrl(), true, langKey, user.getAuthorities());
+    }
+
+    /**
+     * Outcome of a bulk creation.
+     */
+    public static class BulkResult {
+
+        private final int created;
+
+        private final int skipped;
+
+        private final long hashMillis;
+
+        private final long insertMillis;
+
+        BulkResult(int created, int skipped, long hashMillis, long insertMillis) {
+            this.created = created;
+            this.skipped = skipped;
+            this.hashMillis = hashMillis;
+            this.insertMillis = insertMillis;
+        }
+
+        public int getCreated() {
+            return created;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public long getHashMillis() {
+            return hashMillis;
+        }
+
+        public long getInsertMillis() {
+            return insertMillis;
+        }
+
+        public double getRecordsPerSecond() {
+            long totalMillis = hashMillis + insertMillis;
+            return totalMillis == 0 ? 0 : (created + skipped) * 1000d / totalMillis;
+        }
+    }
+}
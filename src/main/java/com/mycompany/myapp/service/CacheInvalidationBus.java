@@ -0,0 +1,167 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.repository.CacheInvalidationTransport;
+import com.mycompany.myapp.repository.CacheInvalidationTransport.CacheInvalidation;
+import com.mycompany.myapp.repository.UserLoginRepository;
+import com.mycompany.myapp.security.jwt.TokenEpochChangedEvent;
+import com.mycompany.myapp.security.jwt.TokenEpochRegistry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Propagates the evictions of the user caches to the other nodes of the cluster.
+ * <p>
+ * Every {@link UserChangedEvent} is published to the {@link CacheInvalidationTransport} just before its
+ * transaction commits, so that the invalidations commit or roll back with the change, and every
+ * {@link UsersChangedEvent} as a single batch. The invalidations
+ * of the other nodes are polled every {@code application.cache.invalidation.poll-delay-millis},
+ * evicted from the local caches and re-published locally as {@link RemoteUserChangedEvent}s, for the
+ * other user caches to evict them too. The changed logins are first evicted from the Hibernate second-level
+ * cache, with the users they resolve to, so that the other caches are not refilled from stale entities. The {@link TokenEpochChangedEvent}s travel the same way, for the
+ * other nodes to reload the epoch into their {@link TokenEpochRegistry}.
+ */
+@Service
+public class CacheInvalidationBus {
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final CacheInvalidationTransport transport;
+
+    private final CacheManager cacheManager;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final TokenEpochRegistry tokenEpochRegistry;
+
+    private final UserCacheEvictionService userCacheEvictionService;
+
+    private final boolean enabled;
+
+    private final Counter published;
+
+    private final Counter applied;
+
+    public CacheInvalidationBus(CacheInvalidationTransport transport, CacheManager cacheManager,
+                                ApplicationEventPublisher applicationEventPublisher, TokenEpochRegistry tokenEpochRegistry,
+                                UserCacheEvictionService userCacheEvictionService,
+                                @Value("${application.cache.invalidation.enabled:true}") boolean enabled,
+                                MeterRegistry meterRegistry) {
+        this.transport = transport;
+        this.cacheManager = cacheManager;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.tokenEpochRegistry = tokenEpochRegistry;
+        this.userCacheEvictionService = userCacheEvictionService;
+        this.enabled = enabled;
+        this.published = Counter.builder("cache.invalidation.bus")
+            .tag("direction", "published")
+            .description("Cache invalidations exchanged with the other nodes")
+            .register(meterRegistry);
+        this.applied = Counter.builder("cache.invalidation.bus")
+            .tag("direction", "applied")
+            .description("Cache invalidations exchanged with the other nodes")
+            .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (!enabled || event instanceof RemoteUserChangedEvent) {
+            return;
+        }
+        List<CacheInvalidation> invalidations = new ArrayList<>();
+        addInvalidations(invalidations, event);
+        publish(invalidations);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onUsersChanged(UsersChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        List<CacheInvalidation> invalidations = new ArrayList<>();
+        for (UserChangedEvent user : event.getUsers()) {
+            addInvalidations(invalidations, user);
+        }
+        publish(invalidations);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onTokenEpochChanged(TokenEpochChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        List<CacheInvalidation> invalidations = new ArrayList<>();
+        addInvalidation(invalidations, TokenEpochRegistry.TOKEN_EPOCHS, event.getLogin());
+        publish(invalidations);
+    }
+
+    /**
+     * Applies the invalidations published by the other nodes.
+     */
+    @Scheduled(fixedDelayString = "${application.cache.invalidation.poll-delay-millis:1000}")
+    public void applyRemoteInvalidations() {
+        if (!enabled) {
+            return;
+        }
+        List<CacheInvalidation> invalidations = transport.poll();
+        Set<String> logins = new HashSet<>();
+        for (CacheInvalidation invalidation : invalidations) {
+            if (UserLoginRepository.USERS_BY_LOGIN_CACHE.equals(invalidation.getCacheName())) {
+                logins.add(invalidation.getKey());
+            }
+        }
+        userCacheEvictionService.evictSecondLevelByLogin(logins);
+        for (CacheInvalidation invalidation : invalidations) {
+            log.debug("Applying remote {}", invalidation);
+            if (TokenEpochRegistry.TOKEN_EPOCHS.equals(invalidation.getCacheName())) {
+                tokenEpochRegistry.refresh(invalidation.getKey());
+                continue;
+            }
+            Cache cache = cacheManager.getCache(invalidation.getCacheName());
+            if (cache != null) {
+                cache.evict(invalidation.getKey());
+            }
+            if (UserLoginRepository.USERS_BY_LOGIN_CACHE.equals(invalidation.getCacheName())) {
+                applicationEventPublisher.publishEvent(new RemoteUserChangedEvent(invalidation.getKey(), null));
+            } else if (UserLoginRepository.USERS_BY_EMAIL_CACHE.equals(invalidation.getCacheName())) {
+                applicationEventPublisher.publishEvent(new RemoteUserChangedEvent(null, invalidation.getKey()));
+            }
+        }
+        applied.increment(invalidations.size());
+    }
+
+    private void publish(List<CacheInvalidation> invalidations) {
+        if (!invalidations.isEmpty()) {
+            transport.publish(invalidations);
+            published.increment(invalidations.size());
+        }
+    }
+
+    private static void addInvalidations(List<CacheInvalidation> invalidations, UserChangedEvent event) {
+        addInvalidation(invalidations, UserLoginRepository.USERS_BY_LOGIN_CACHE, event.getLogin());
+        addInvalidation(invalidations, UserLoginRepository.USERS_BY_LOGIN_CACHE, event.getPreviousLogin());
+        addInvalidation(invalidations, UserLoginRepository.USERS_BY_EMAIL_CACHE, event.getEmail());
+        addInvalidation(invalidations, UserLoginRepository.USERS_BY_EMAIL_CACHE, event.getPreviousEmail());
+    }
+
+    private static void addInvalidation(List<CacheInvalidation> invalidations, String cacheName, String key) {
+        if (key != null) {
+            invalidations.add(new CacheInvalidation(cacheName, key));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.service.UserCacheEvictionService.EvictedUser;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes the users who never activated their account, replacing the one by one deletion of
+ * {@code UserLoginService.removeNotActivatedUsers}.
+ * <p>
+ * Users are deleted by chunks of {@code application.cleanup.not-activated.chunk-size}, with set-based
+ * {@code DELETE ... WHERE id IN (...)} statements, each chunk in its own transaction: a spam wave
+ * neither loads every user in memory nor holds one long transaction. The users of a chunk are locked when
+ * they are selected, so that a user activating meanwhile either waits for the chunk to commit or is no
+ * longer selected. The caches are evicted once per chunk, and a single {@link UsersChangedEvent} is
+ * published for the other nodes.
+ */
+@Service
+public class NotActivatedUserCleanupService {
+
+    private static final String SELECT_CHUNK =
+        "select id, login, email from jhi_user where activated = ? and activation_key is not null and created_date < ? " +
+            "and id > ? order by id for update";
+
+    private static final String COUNT_REMAINING =
+        "select count(*) from jhi_user where activated = ? and activation_key is not null and created_date < ?";
+
+    private final Logger log = LoggerFactory.getLogger(NotActivatedUserCleanupService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final UserCacheEvictionService userCacheEvictionService;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final int chunkSize;
+
+    private final int retentionDays;
+
+    private final AtomicLong remaining = new AtomicLong();
+
+    private final Counter deleted;
+
+    private final Timer duration;
+
+    private final DistributionSummary throughput;
+
+    public NotActivatedUserCleanupService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                          UserCacheEvictionService userCacheEvictionService,
+                                          ApplicationEventPublisher applicationEventPublisher, MeterRegistry meterRegistry,
+                                          @Value("${application.cleanup.not-activated.chunk-size:500}") int chunkSize,
+                                          @Value("${application.cleanup.not-activated.retention-days:3}") int retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userCacheEvictionService = userCacheEvictionService;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.chunkSize = chunkSize;
+        this.retentionDays = retentionDays;
+        Gauge.builder("users.cleanup.remaining", remaining, AtomicLong::get)
+            .description("Not activated users still to be deleted by the running cleanup")
+            .register(meterRegistry);
+        this.deleted = Counter.builder("users.cleanup.deleted")
+            .description("Not activated users deleted by the cleanup")
+            .register(meterRegistry);
+        this.duration = Timer.builder("users.cleanup.duration")
+            .description("Duration of the cleanups of the not activated users")
+            .register(meterRegistry);
+        this.throughput = DistributionSummary.builder("users.cleanup.throughput")
+            .baseUnit("rows/s")
+            .description("Users deleted per second by the cleanups of the not activated users")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Not activated users should be automatically deleted after {@code retention-days} days.
+     * <p>
+     * This is scheduled to get fired everyday, at 01:00 (am).
+     */
+    @Scheduled(cron = "0 0 1 * * ?")
+    public void removeNotActivatedUsers() {
+        removeNotActivatedUsers(Instant.now().minus(retentionDays, ChronoUnit.DAYS));
+    }
+
+    /**
+     * @param createdBefore the users created from this instant are kept.
+     * @return the number of deleted users.
+     */
+    long removeNotActivatedUsers(Instant createdBefore) {
+        Timestamp before = Timestamp.from(createdBefore);
+        remaining.set(jdbcTemplate.queryForObject(COUNT_REMAINING, Long.class, false, before));
+        log.info("Deleting {} not activated users, by chunks of {}", remaining.get(), chunkSize);
+        long start = System.nanoTime();
+        long total = 0;
+        long lastId = 0;
+        List<EvictedUser> chunk;
+        do {
+            long afterId = lastId;
+            chunk = transactionTemplate.execute(status -> deleteChunk(before, afterId));
+            if (!chunk.isEmpty()) {
+                lastId = chunk.get(chunk.size() - 1).getId();
+                userCacheEvictionService.evict(chunk);
+                total += chunk.size();
+                deleted.increment(chunk.size());
+                remaining.addAndGet(-chunk.size());
+                log.debug("Deleted {} not activated users, {} remaining", total, Math.max(remaining.get(), 0));
+            }
+        } while (chunk.size() == chunkSize);
+        long nanos = System.nanoTime() - start;
+        duration.record(nanos, TimeUnit.NANOSECONDS);
+        remaining.set(0);
+        if (total > 0) {
+            double rowsPerSecond = total * 1e9 / Math.max(nanos, 1);
+            throughput.record(rowsPerSecond);
+            log.info("Deleted {} not activated users in {} ms ({} rows/s)", total, TimeUnit.NANOSECONDS.toMillis(nanos),
+                Math.round(rowsPerSecond));
+        }
+        return total;
+    }
+
+    private List<EvictedUser> deleteChunk(Timestamp before, long afterId) {
+        List<EvictedUser> chunk = jdbcTemplate.query(SELECT_CHUNK,
+            ps -> {
+                ps.setBoolean(1, false);
+                ps.setTimestamp(2, before);
+                ps.setLong(3, afterId);
+                ps.setMaxRows(chunkSize);
+            },
+            (resultSet, rowNum) -> new EvictedUser(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3)));
+        if (chunk.isEmpty()) {
+            return chunk;
+        }
+        List<Long> ids = new ArrayList<>(chunk.size());
+        List<UserChangedEvent> users = new ArrayList<>(chunk.size());
+        for (EvictedUser user : chunk) {
+            ids.add(user.getId());
+            users.add(user.toEvent());
+        }
+        namedParameterJdbcTemplate.update("delete from jhi_user_authority where user_id in (:ids)",
+            Collections.singletonMap("ids", ids));
+        namedParameterJdbcTemplate.update("delete from jhi_user where id in (:ids)", Collections.singletonMap("ids", ids));
+        applicationEventPublisher.publishEvent(new UsersChangedEvent(users));
+        return chunk;
+    }
+}
@@ -0,0 +1,12 @@
+package com.mycompany.myapp.service;
+
+/**
+ * {@link UserChangedEvent} received from another node of the cluster through the
+ * {@link CacheInvalidationBus}: it must be applied locally but not published again.
+ */
+public class RemoteUserChangedEvent extends UserChangedEvent {
+
+    public RemoteUserChangedEvent(String login, String email) {
+        super(login, email);
+    }
+}
@@ -0,0 +1,76 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.security.jwt.TokenEpochChangedEvent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service revoking every token already issued to a user, by bumping their token epoch.
+ * <p>
+ * It must be called on password change, deactivation and deletion of a user. The epochs are kept in
+ * {@code jhi_token_epoch} by login, and outlive the users: the tokens of a deleted user stay revoked, and a
+ * re-created login starts at the epoch of the previous user.
+ */
+@Service
+@Transactional
+public class TokenEpochService {
+
+    private final Logger log = LoggerFactory.getLogger(TokenEpochService.class);
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public TokenEpochService(JdbcTemplate jdbcTemplate, ApplicationEventPublisher applicationEventPublisher) {
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    /**
+     * Revokes the tokens issued to a user so far.
+     *
+     * @param login the login of the user.
+     */
+    public void revokeTokens(String login) {
+        revokeTokens(Collections.singletonList(login));
+    }
+
+    /**
+     * Revokes the tokens issued to many users so far, with a few statements.
+     *
+     * @param logins the logins of the users.
+     */
+    public void revokeTokens(Collection<String> logins) {
+        if (logins.isEmpty()) {
+            return;
+        }
+        Map<String, Collection<String>> parameters = Collections.singletonMap("logins", logins);
+        // Locking the users serializes the revocations, so the first epoch of a login is inserted once
+        List<String> existing = namedParameterJdbcTemplate.queryForList(
+            "select login from jhi_user where login in (:logins) for update", parameters, String.class);
+        if (existing.isEmpty()) {
+            log.debug("No user {} to revoke the tokens of", logins);
+            return;
+        }
+        parameters = Collections.singletonMap("logins", existing);
+        namedParameterJdbcTemplate.update("insert into jhi_token_epoch (login, epoch) select login, 0 from jhi_user " +
+            "where login in (:logins) and login not in (select login from jhi_token_epoch)", parameters);
+        namedParameterJdbcTemplate.update("update jhi_token_epoch set epoch = epoch + 1 where login in (:logins)", parameters);
+        namedParameterJdbcTemplate.query("select login, epoch from jhi_token_epoch where login in (:logins)",
+            parameters, resultSet -> {
+                log.debug("Revoked the tokens of user {}, now at epoch {}", resultSet.getString(1), resultSet.getInt(2));
+                applicationEventPublisher.publishEvent(new TokenEpochChangedEvent(resultSet.getString(1), resultSet.getInt(2)));
+            });
+    }
+}
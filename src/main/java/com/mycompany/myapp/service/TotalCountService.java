@@ -0,0 +1,172 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.config.Constants;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.audit.listener.AuditApplicationEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Provides the total counts of the paginated listings, without a {@code COUNT(*)} on every page.
+ * <p>
+ * Exact counts are cached for {@code application.pagination.count-cache-seconds}. The cached count of the
+ * users is invalidated on every user change. The cached count of the audit events is incremented as
+ * events are stored, and refreshed when its window ends, which catches up with the purges. Approximate
+ * counts come from the planner statistics of PostgreSQL. They fall back to the cached exact count on other
+ * databases, or when the table was never analyzed.
+ */
+@Service
+public class TotalCountService {
+
+    public static final String USERS = "jhi_user";
+
+    public static final String AUDIT_EVENTS = "jhi_persistent_audit_event";
+
+    private static final String AUTHORIZATION_FAILURE = "AUTHORIZATION_FAILURE";
+
+    private final Logger log = LoggerFactory.getLogger(TotalCountService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final long cacheMillis;
+
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Counter exactCounts;
+
+    private final Counter cachedCounts;
+
+    private final Counter approximateCounts;
+
+    private volatile Boolean postgresql;
+
+    public TotalCountService(JdbcTemplate jdbcTemplate,
+                             @Value("${application.pagination.count-cache-seconds:30}") long cacheSeconds,
+                             MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheMillis = cacheSeconds * 1000;
+        this.exactCounts = counter("exact", meterRegistry);
+        this.cachedCounts = counter("cached", meterRegistry);
+        this.approximateCounts = counter("approximate", meterRegistry);
+    }
+
+    private static Counter counter(String mode, MeterRegistry meterRegistry) {
+        return Counter.builder("pagination.total.count")
+            .tag("mode", mode)
+            .description("Total counts of the paginated listings")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @param approximate whether an approximate count is acceptable.
+     * @return the number of users, without the anonymous user.
+     */
+    public long countUsers(boolean approximate) {
+        return count(USERS, approximate, () -> jdbcTemplate.queryForObject(
+            "select count(*) from jhi_user where login <> ?", Long.class, Constants.ANONYMOUS_USER));
+    }
+
+    /**
+     * @param approximate whether an approximate count is acceptable.
+     * @return the number of stored audit events.
+     */
+    public long countAuditEvents(boolean approximate) {
+        return count(AUDIT_EVENTS, approximate, () -> jdbcTemplate.queryForObject(
+            "select count(*) from jhi_persistent_audit_event", Long.class));
+    }
+
+    /**
+     * Forgets the cached count of a table, e.g. after a bulk change.
+     *
+     * @param table the table, {@link #USERS} or {@link #AUDIT_EVENTS}.
+     */
+    public void invalidate(String table) {
+        invalidations.incrementAndGet();
+        counts.remove(table);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(USERS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsersChanged(UsersChangedEvent event) {
+        invalidate(USERS);
+    }
+
+    @EventListener
+    public void onAuditEvent(AuditApplicationEvent event) {
+        if (!AUTHORIZATION_FAILURE.equals(event.getAuditEvent().getType()) &&
+            !Constants.ANONYMOUS_USER.equals(event.getAuditEvent().getPrincipal())) {
+            CachedCount count = counts.get(AUDIT_EVENTS);
+            if (count != null) {
+                count.value.incrementAndGet();
+            }
+        }
+    }
+
+    private long count(String table, boolean approximate, LongSupplier exactCount) {
+        if (approximate && isPostgresql()) {
+            List<Long> estimates = jdbcTemplate.queryForList(
+                "select reltuples::bigint from pg_class where relname = ?", Long.class, table);
+            if (!estimates.isEmpty() && estimates.get(0) >= 0) {
+                approximateCounts.increment();
+                return estimates.get(0);
+            }
+        }
+        long now = System.currentTimeMillis();
+        CachedCount cached = counts.get(table);
+        if (cached != null && cached.expiresAt > now) {
+            cachedCounts.increment();
+            return cached.value.get();
+        }
+        exactCounts.increment();
+        long countInvalidations = invalidations.get();
+        long count = exactCount.getAsLong();
+        if (invalidations.get() == countInvalidations) {
+            counts.put(table, new CachedCount(count, now + cacheMillis));
+        }
+        return count;
+    }
+
+    private boolean isPostgresql() {
+        Boolean result = postgresql;
+        if (result == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+            log.debug("Database of the approximate counts: {}", product);
+            result = "PostgreSQL".equalsIgnoreCase(product);
+            postgresql = result;
+        }
+        return result;
+    }
+
+    private static final class CachedCount {
+
+        private final AtomicLong value;
+
+        private final long expiresAt;
+
+        CachedCount(long value, long expiresAt) {
+            this.value = new AtomicLong(value);
+            this.expiresAt = expiresAt;
+        }
+    }
+}
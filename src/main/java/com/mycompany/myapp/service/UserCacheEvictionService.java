@@ -0,0 +1,172 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.domain.UserLogin;
+import com.mycompany.myapp.repository.UserLoginRepository;
+
+import org.hibernate.Session;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Evicts many users at once from the local user caches and from the Hibernate second-level cache, including
+ * the natural-id region of the logins, after they have been changed with SQL by a bulk operation.
+ * <p>
+ * It must be called once the change is committed. The other nodes are notified by publishing a
+ * {@link UsersChangedEvent} in the changing transaction: they evict the Spring caches, and the second-level
+ * cache with {@link #evictSecondLevelByLogin(Collection)}.
+ */
+@Service
+public class UserCacheEvictionService {
+
+    private static final String AUTHORITIES_COLLECTION = UserLogin.class.getName() + ".authorities";
+
+    private final CacheManager cacheManager;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public UserCacheEvictionService(CacheManager cacheManager, EntityManagerFactory entityManagerFactory, DataSource dataSource) {
+        this.cacheManager = cacheManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * @param users the changed users.
+     */
+    public void evict(Collection<EvictedUser> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Cache usersByLogin = cacheManager.getCache(UserLoginRepository.USERS_BY_LOGIN_CACHE);
+        Cache usersByEmail = cacheManager.getCache(UserLoginRepository.USERS_BY_EMAIL_CACHE);
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        try (NaturalIdEvicter naturalIds = new NaturalIdEvicter(sessionFactory)) {
+            for (EvictedUser user : users) {
+                if (usersByLogin != null) {
+                    usersByLogin.evict(user.getLogin());
+                }
+                if (usersByEmail != null && user.getEmail() != null) {
+                    usersByEmail.evict(user.getEmail());
+                }
+                evictSecondLevel(sessionFactory, user.getId());
+                naturalIds.evict(user.getLogin());
+            }
+        }
+    }
+
+    /**
+     * Evicts users changed by another node from the second-level cache: the resolutions of the logins, and
+     * the users and authorities of the ids the logins now resolve to in the database.
+     * <p>
+     * A user deleted by the other node no longer resolves to an id, so only the resolution of their login is
+     * evicted; the lookups by login then find no user.
+     *
+     * @param logins the logins, current or previous, of the changed users.
+     */
+    public void evictSecondLevelByLogin(Collection<String> logins) {
+        if (logins.isEmpty()) {
+            return;
+        }
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        try (NaturalIdEvicter naturalIds = new NaturalIdEvicter(sessionFactory)) {
+            for (String login : logins) {
+                naturalIds.evict(login);
+            }
+        }
+        List<Long> ids = jdbcTemplate.queryForList("select id from jhi_user where login in (:logins)",
+            Collections.singletonMap("logins", logins), Long.class);
+        for (Long id : ids) {
+            evictSecondLevel(sessionFactory, id);
+        }
+    }
+
+    private static void evictSecondLevel(SessionFactoryImplementor sessionFactory, long id) {
+        sessionFactory.getCache().evictEntityData(UserLogin.class, id);
+        sessionFactory.getCache().evictCollectionData(AUTHORITIES_COLLECTION, id);
+    }
+
+    /**
+     * Evicts single logins from the {@code UserLogin##NaturalId} region, through the access of the entity
+     * persister: {@code org.hibernate.Cache} can only evict the whole region.
+     */
+    private static class NaturalIdEvicter implements AutoCloseable {
+
+        private final EntityPersister persister;
+
+        private final NaturalIdDataAccess access;
+
+        private final Session session;
+
+        NaturalIdEvicter(SessionFactoryImplementor sessionFactory) {
+            this.persister = sessionFactory.getMetamodel().entityPersister(UserLogin.class);
+            // null when the second-level cache is disabled
+            this.access = persister.getNaturalIdCacheAccessStrategy();
+            // The keys only use the session to reach the factory, no connection is obtained
+            this.session = access != null ? sessionFactory.openSession() : null;
+        }
+
+        void evict(String login) {
+            if (access != null && login != null) {
+                access.evict(access.generateCacheKey(new Object[]{login}, persister, (SharedSessionContractImplementor) session));
+            }
+        }
+
+        @Override
+        public void close() {
+            if (session != null) {
+                session.close();
+            }
+        }
+    }
+
+    /**
+     * A user to evict, with every key it may be cached with.
+     */
+    public static class EvictedUser {
+
+        private final long id;
+
+        private final String login;
+
+        private final String email;
+
+        public EvictedUser(long id, String login, String email) {
+            this.id = id;
+            this.login = login;
+            this.email = email;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getLogin() {
+            return login;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        /**
+         * @return the event notifying the other caches of the change of this user.
+         */
+        public UserChangedEvent toEvent() {
+            return new UserChangedEvent(login, email);
+        }
+    }
+}
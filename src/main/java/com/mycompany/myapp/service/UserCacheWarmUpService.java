@@ -0,0 +1,221 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.config.ReplicaRoutingDataSource;
+import com.mycompany.myapp.domain.UserLogin;
+import com.mycompany.myapp.repository.UserLoginRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fills the user caches with the recently active users, once the application is started.
+ * <p>
+ * Logins are streamed from {@code jhi_user}, most recently modified first, and loaded with their
+ * authorities by batches on a dedicated pool. The users changed while the warm-up runs are recorded, then
+ * evicted by the change listener itself and again by the warm-up after caching them: whichever of the put and
+ * of the change comes last, the warm-up cannot leave a stale user cached.
+ * {@link #isDone()} is reported by the {@code userCacheWarmUp} health indicator.
+ */
+@Service
+public class UserCacheWarmUpService {
+
+    private static final String ACTIVE_LOGINS_QUERY =
+        "select login from jhi_user where activated = ? and last_modified_date >= ? " +
+            "order by last_modified_date desc limit ?";
+
+    private static final String USERS_WITH_AUTHORITIES_QUERY =
+        "select distinct u from UserLogin u left join fetch u.authorities where u.login in :logins";
+
+    private final Logger log = LoggerFactory.getLogger(UserCacheWarmUpService.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final CacheManager cacheManager;
+
+    private final boolean enabled;
+
+    private final int maxUsers;
+
+    private final int activeWithinDays;
+
+    private final int batchSize;
+
+    private final int threads;
+
+    private final AtomicInteger loaded = new AtomicInteger();
+
+    private final Set<String> changedLogins = ConcurrentHashMap.newKeySet();
+
+    private final Timer duration;
+
+    private volatile boolean running;
+
+    private volatile boolean done;
+
+    public UserCacheWarmUpService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                  CacheManager cacheManager, MeterRegistry meterRegistry,
+                                  @Value("${application.cache.user-warm-up.enabled:false}") boolean enabled,
+                                  @Value("${application.cache.user-warm-up.max-users:10000}") int maxUsers,
+                                  @Value("${application.cache.user-warm-up.active-within-days:30}") int activeWithinDays,
+                                  @Value("${application.cache.user-warm-up.batch-size:200}") int batchSize,
+                                  @Value("${application.cache.user-warm-up.threads:4}") int threads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.cacheManager = cacheManager;
+        this.enabled = enabled;
+        this.maxUsers = maxUsers;
+        this.activeWithinDays = activeWithinDays;
+        this.batchSize = batchSize;
+        this.threads = threads;
+        this.done = !enabled;
+        Gauge.builder("cache.user.warmup.loaded", loaded, AtomicInteger::get)
+            .description("Users loaded in the user caches by the startup warm-up")
+            .register(meterRegistry);
+        this.duration = Timer.builder("cache.user.warmup.duration")
+            .description("Time spent warming up the user caches at startup")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(() -> duration.record(this::warmUp), "user-cache-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return {@code true} once the warm-up is finished, or if it is disabled.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * @return the number of users cached by the warm-up so far.
+     */
+    public int getLoaded() {
+        return loaded.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (running) {
+            // Recorded before evicting, for a put racing with this change to be evicted by one or the other
+            changedLogins.add(event.getLogin());
+            if (event.getPreviousLogin() != null) {
+                changedLogins.add(event.getPreviousLogin());
+            }
+            evict(cacheManager.getCache(UserLoginRepository.USERS_BY_LOGIN_CACHE), event.getLogin(), event.getPreviousLogin());
+            evict(cacheManager.getCache(UserLoginRepository.USERS_BY_EMAIL_CACHE), event.getEmail(), event.getPreviousEmail());
+        }
+    }
+
+    private static void evict(Cache cache, String... keys) {
+        if (cache == null) {
+            return;
+        }
+        for (String key : keys) {
+            if (key != null) {
+                cache.evict(key);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsersChanged(UsersChangedEvent event) {
+        event.getUsers().forEach(this::onUserChanged);
+    }
+
+    void warmUp() {
+        running = true;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            log.info("Warming up the user caches with at most {} users active within {} days", maxUsers, activeWithinDays);
+            List<CompletableFuture<Void>> batches = new ArrayList<>();
+            List<String> batch = new ArrayList<>(batchSize);
+            Timestamp since = Timestamp.from(Instant.now().minus(activeWithinDays, ChronoUnit.DAYS));
+            jdbcTemplate.query(ACTIVE_LOGINS_QUERY, resultSet -> {
+                batch.add(resultSet.getString(1));
+                if (batch.size() == batchSize) {
+                    batches.add(submit(executor, new ArrayList<>(batch)));
+                    batch.clear();
+                }
+            }, true, since, maxUsers);
+            if (!batch.isEmpty()) {
+                batches.add(submit(executor, batch));
+            }
+            CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).join();
+            log.info("User caches warmed up with {} users", loaded.get());
+        } catch (RuntimeException e) {
+            log.warn("User cache warm-up failed after {} users, the other users will be loaded on demand", loaded.get(), e);
+        } finally {
+            executor.shutdown();
+            running = false;
+            changedLogins.clear();
+            done = true;
+        }
+    }
+
+    private CompletableFuture<Void> submit(ExecutorService executor, List<String> logins) {
+        return CompletableFuture.runAsync(() -> cacheUsers(logins), executor);
+    }
+
+    private void cacheUsers(List<String> logins) {
+        // Cached until evicted, so not read from a replica which may not have replayed the latest changes
+        List<UserLogin> users = ReplicaRoutingDataSource.readFromPrimary(() -> transactionTemplate.execute(status ->
+            entityManager.createQuery(USERS_WITH_AUTHORITIES_QUERY, UserLogin.class)
+                .setParameter("logins", logins)
+                .getResultList()));
+        Cache usersByLogin = cacheManager.getCache(UserLoginRepository.USERS_BY_LOGIN_CACHE);
+        Cache usersByEmail = cacheManager.getCache(UserLoginRepository.USERS_BY_EMAIL_CACHE);
+        for (UserLogin user : users) {
+            usersByLogin.put(user.getLogin(), user);
+            if (user.getEmail() != null) {
+                usersByEmail.put(user.getEmail(), user);
+            }
+            if (changedLogins.contains(user.getLogin())) {
+                usersByLogin.evict(user.getLogin());
+                if (user.getEmail() != null) {
+                    usersByEmail.evict(user.getEmail());
+                }
+            }
+        }
+        loaded.addAndGet(users.size());
+    }
+}
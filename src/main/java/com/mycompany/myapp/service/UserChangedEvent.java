@@ -0,0 +1,65 @@
+package com.mycompany.myapp.service;
+
+/**
+ * Published when a user is created, updated or deleted, so that every cache holding this user evicts it.
+ * <p>
+ * Listeners should use {@code @TransactionalEventListener(fallbackExecution = true)}, so that a stale
+ * value cannot be cached again before the change is committed.
+ */
+public class UserChangedEvent {
+
+    private final String login;
+
+    private final String email;
+
+    private final String previousLogin;
+
+    private final String previousEmail;
+
+    /**
+     * @param login the login of the user.
+     * @param email the email of the user, may be {@code null}.
+     */
+    public UserChangedEvent(String login, String email) {
+        this(login, email, null, null);
+    }
+
+    /**
+     * @param login the login of the user, after the change.
+     * @param email the email of the user after the change, may be {@code null}.
+     * @param previousLogin the login of the user before the change, {@code null} if it was created.
+     * @param previousEmail the email of the user before the change, may be {@code null}.
+     */
+    public UserChangedEvent(String login, String email, String previousLogin, String previousEmail) {
+        this.login = login;
+        this.email = email;
+        this.previousLogin = previousLogin;
+        this.previousEmail = previousEmail;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPreviousLogin() {
+        return previousLogin;
+    }
+
+    public String getPreviousEmail() {
+        return previousEmail;
+    }
+
+    @Override
+    public String toString() {
+        return "UserChangedEvent{" +
+            "login='" + login + '\'' +
+            ", email='" + email + '\'' +
+            ", previousLogin='" + previousLogin + '\'' +
+            ", previousEmail='" + previousEmail + '\'' +
+            "}";
+    }
+}
@@ -0,0 +1,290 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.config.Constants;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service streaming the users out of the database, in NDJSON or CSV.
+ * <p>
+ * Users are read by pages of {@code application.export.page-size} users, ordered by id, each page in its own short
+ * read-only transaction starting after the last id of the previous page. A page is written and flushed once its
+ * transaction is over, so a slow client never holds a database connection, and the memory used does not depend on
+ * the number of users. Authorities are read in the same query as their users.
+ * <p>
+ * The export is not a consistent snapshot: each page sees the users committed when it is read, so a user
+ * created, changed or deleted during the export may be missing, or exported as of a later change than the
+ * users before it.
+ * <p>
+ * CSV fields starting like a spreadsheet formula are prefixed with a quote, so that user-controlled values such
+ * as names and emails cannot be evaluated when the export is opened in a spreadsheet.
+ */
+@Service
+public class UserExportService {
+
+    /**
+     * Formats of the export.
+     */
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final String EXPORT_PAGE_QUERY =
+        "select u.id, u.login, u.first_name, u.last_name, u.email, u.image_url, u.activated, u.lang_key, " +
+            "u.created_date, u.last_modified_date, ua.authority_name " +
+            "from (select * from jhi_user where login <> ? and id > ? order by id limit ?) u " +
+            "left join jhi_user_authority ua on ua.user_id = u.id order by u.id";
+
+    private static final String CSV_HEADER =
+        "id,login,firstName,lastName,email,imageUrl,activated,langKey,createdDate,lastModifiedDate,authorities";
+
+    private final Logger log = LoggerFactory.getLogger(UserExportService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final int pageSize;
+
+    public UserExportService(DataSource dataSource, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                             @Value("${application.export.page-size:500}") int pageSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Writes all the users, without the anonymous user, ordered by id.
+     *
+     * @param format the format of the export.
+     * @param out the stream to write to, not closed.
+     * @return the number of exported users.
+     * @throws IOException if the stream cannot be written.
+     */
+    public long export(Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(objectMapper, writer);
+        long exported = 0;
+        long afterId = -1;
+        List<ExportedUser> page;
+        do {
+            long pageAfterId = afterId;
+            page = transactionTemplate.execute(status -> readPage(pageAfterId));
+            for (ExportedUser user : page) {
+                rowWriter.write(user);
+                afterId = user.id;
+            }
+            rowWriter.flush();
+            exported += page.size();
+        } while (page.size() == pageSize);
+        log.debug("Exported {} users in {}", exported, format);
+        return exported;
+    }
+
+    /**
+     * Reads the next users with their authorities, whose rows are consecutive.
+     */
+    private List<ExportedUser> readPage(long afterId) {
+        List<ExportedUser> page = new ArrayList<>(pageSize);
+        jdbcTemplate.query(EXPORT_PAGE_QUERY, resultSet -> {
+            long id = resultSet.getLong("id");
+            if (page.isEmpty() || page.get(page.size() - 1).id != id) {
+                page.add(new ExportedUser(resultSet));
+            }
+            String authority = resultSet.getString("authority_name");
+            if (authority != null) {
+                page.get(page.size() - 1).authorities.add(authority);
+            }
+        }, Constants.ANONYMOUS_USER, afterId, pageSize);
+        return page;
+    }
+
+    private static class ExportedUser {
+
+        private final long id;
+
+        private final String login;
+
+        private final String firstName;
+
+        private final String lastName;
+
+        private final String email;
+
+        private final String imageUrl;
+
+        private final boolean activated;
+
+        private final String langKey;
+
+        private final String createdDate;
+
+        private final String lastModifiedDate;
+
+        private final List<String> authorities = new ArrayList<>(2);
+
+        ExportedUser(ResultSet resultSet) throws SQLException {
+            this.id = resultSet.getLong("id");
+            this.login = resultSet.getString("login");
+            this.firstName = resultSet.getString("first_name");
+            this.lastName = resultSet.getString("last_name");
+            this.email = resultSet.getString("email");
+            this.imageUrl = resultSet.getString("image_url");
+            this.activated = resultSet.getBoolean("activated");
+            this.langKey = resultSet.getString("lang_key");
+            this.createdDate = toIsoString(resultSet.getTimestamp("created_date"));
+            this.lastModifiedDate = toIsoString(resultSet.getTimestamp("last_modified_date"));
+        }
+
+        private static String toIsoString(Timestamp timestamp) {
+            return timestamp == null ? null : timestamp.toInstant().toString();
+        }
+    }
+
+    private interface RowWriter {
+
+        void write(ExportedUser user) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    private static class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(ObjectMapper objectMapper, Writer writer) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(ExportedUser user) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", user.id);
+            generator.writeStringField("login", user.login);
+            generator.writeStringField("firstName", user.firstName);
+            generator.writeStringField("lastName", user.lastName);
+            generator.writeStringField("email", user.email);
+            generator.writeStringField("imageUrl", user.imageUrl);
+            generator.writeBooleanField("activated", user.activated);
+            generator.writeStringField("langKey", user.langKey);
+            generator.writeStringField("createdDate", user.createdDate);
+            generator.writeStringField("lastModifiedDate", user.lastModifiedDate);
+            generator.writeArrayFieldStart("authorities");
+            for (String authority : user.authorities) {
+                generator.writeString(authority);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(ExportedUser user) throws IOException {
+            writer.write(Long.toString(user.id));
+            writeField(user.login);
+            writeField(user.firstName);
+            writeField(user.lastName);
+            writeField(user.email);
+            writeField(user.imageUrl);
+            writeField(Boolean.toString(user.activated));
+            writeField(user.langKey);
+            writeField(user.createdDate);
+            writeField(user.lastModifiedDate);
+            writeField(String.join(" ", user.authorities));
+            writer.write('\n');
+        }
+
+        private void writeField(String value) throws IOException {
+            writer.write(',');
+            if (value == null) {
+                return;
+            }
+            if (isFormula(value)) {
+                value = "'" + value;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+
+        /**
+         * Values a spreadsheet would evaluate as a formula.
+         */
+        private static boolean isFormula(String value) {
+            if (value.isEmpty()) {
+                return false;
+            }
+            char first = value.charAt(0);
+            return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+    }
+}
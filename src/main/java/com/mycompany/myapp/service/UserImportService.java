@@ -0,0 +1,275 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.repository.UserBatchWriter;
+import com.mycompany.myapp.security.BulkPasswordHasher;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service importing users from a JSON array, in the format of {@code UserDTO} with an optional password.
+ * <p>
+ * The file is parsed one record at a time with the Jackson streaming parser, and the users are inserted
+ * by JDBC batches of {@code hibernate.jdbc.batch_size}, each batch in its own transaction, so that the
+ * memory used does not depend on the size of the file. The passwords of a batch are hashed in parallel
+ * by the {@link BulkPasswordHasher}. A user whose login or email already exists is skipped, see
+ * {@link UserBatchWriter}, which publishes the imported users of each batch for the caches to be invalidated.
+ * <p>
+ * Imports run one at a time, on a dedicated thread.
+ */
+@Service
+public class UserImportService {
+
+    private static final String CREATED_BY = "system";
+
+    private final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    private final UserBatchWriter userBatchWriter;
+
+    private final BulkPasswordHasher bulkPasswordHasher;
+
+    private final ObjectMapper objectMapper;
+
+    private final ResourceLoader resourceLoader;
+
+    private final int batchSize;
+
+    private final String startupFile;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final Counter imported;
+
+    private final Counter skipped;
+
+    private final Timer duration;
+
+    private volatile ImportStatus status = new ImportStatus(null);
+
+    public UserImportService(UserBatchWriter userBatchWriter, BulkPasswordHasher bulkPasswordHasher, ObjectMapper objectMapper,
+                             ResourceLoader resourceLoader, MeterRegistry meterRegistry,
+                             @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:25}") int batchSize,
+                             @Value("${application.import.startup-file:}") String startupFile) {
+        this.userBatchWriter = userBatchWriter;
+        this.bulkPasswordHasher = bulkPasswordHasher;
+        this.objectMapper = objectMapper;
+        this.resourceLoader = resourceLoader;
+        this.batchSize = batchSize;
+        this.startupFile = startupFile;
+        this.imported = Counter.builder("users.import.records")
+            .tag("result", "imported")
+            .description("Users read by the imports")
+            .register(meterRegistry);
+        this.skipped = Counter.builder("users.import.records")
+            .tag("result", "skipped")
+            .description("Users read by the imports")
+            .register(meterRegistry);
+        this.duration = Timer.builder("users.import.duration")
+            .description("Duration of the user imports")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!startupFile.isEmpty()) {
+            Resource resource = resourceLoader.getResource(startupFile);
+            if (resource.exists()) {
+                startImport(resource, null);
+            } else {
+                log.warn("User import file {} not found", startupFile);
+            }
+        }
+    }
+
+    /**
+     * Starts importing the users of a resource, unless an import is already running.
+     *
+     * @param resource the JSON array of users.
+     * @param onFinish called once the import is finished, may be {@code null}.
+     * @return whether the import was started.
+     */
+    public boolean startImport(Resource resource, Runnable onFinish) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        ImportStatus importStatus = new ImportStatus(resource.getDescription());
+        status = importStatus;
+        executor.execute(() -> {
+            try (InputStream in = resource.getInputStream()) {
+                duration.record(() -> {
+                    try {
+                        importUsers(in, importStatus);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                log.info("Imported {} users from {}, {} skipped", importStatus.getImported(), importStatus.getSource(),
+                    importStatus.getSkipped());
+            } catch (IOException | RuntimeException e) {
+                log.error("User import from {} failed after {} users", importStatus.getSource(), importStatus.getImported(), e);
+                importStatus.error = e.getMessage();
+            } finally {
+                importStatus.finishedAt = Instant.now();
+                running.set(false);
+                if (onFinish != null) {
+                    onFinish.run();
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * @return the status of the last import.
+     */
+    public ImportStatus getStatus() {
+        return status;
+    }
+
+    void importUsers(InputStream in, ImportStatus importStatus) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("The users must be a JSON array");
+            }
+            List<ImportedUser> batch = new ArrayList<>(batchSize);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                ImportedUser user = objectMapper.readValue(parser, ImportedUser.class);
+                if (user.login == null || user.login.trim().isEmpty()) {
+                    importStatus.skipped.incrementAndGet();
+                    skipped.increment();
+                    continue;
+                }
+                batch.add(user);
+                if (batch.size() == batchSize) {
+                    insertBatch(batch, importStatus);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                insertBatch(batch, importStatus);
+            }
+        }
+    }
+
+    private void insertBatch(List<ImportedUser> batch, ImportStatus importStatus) {
+        List<String> passwords = new ArrayList<>(batch.size());
+        for (ImportedUser user : batch) {
+            passwords.add(user.password);
+        }
+        List<String> passwordHashes = bulkPasswordHasher.encodeAll(passwords);
+        List<UserBatchWriter.NewUser> users = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            ImportedUser user = batch.get(i);
+            users.add(new UserBatchWriter.NewUser(user.login, passwordHashes.get(i), user.firstName, user.lastName, user.email,
+                user.imageUrl, user.activated, user.langKey, user.authorities));
+        }
+        int inserted = userBatchWriter.insert(users, CREATED_BY);
+        importStatus.imported.addAndGet(inserted);
+        importStatus.skipped.addAndGet(batch.size() - inserted);
+        imported.increment(inserted);
+        skipped.increment(batch.size() - inserted);
+    }
+
+    /**
+     * Progress of an import.
+     */
+    public static class ImportStatus {
+
+        private final String source;
+
+        private final Instant startedAt = Instant.now();
+
+        private final AtomicLong imported = new AtomicLong();
+
+        private final AtomicLong skipped = new AtomicLong();
+
+        private volatile Instant finishedAt;
+
+        private volatile String error;
+
+        ImportStatus(String source) {
+            this.source = source;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public Instant getStartedAt() {
+            return source == null ? null : startedAt;
+        }
+
+        public Instant getFinishedAt() {
+            return finishedAt;
+        }
+
+        public boolean isRunning() {
+            return source != null && finishedAt == null;
+        }
+
+        public long getImported() {
+            return imported.get();
+        }
+
+        public long getSkipped() {
+            return skipped.get();
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class ImportedUser {
+
+        public String login;
+
+        public String password;
+
+        public String firstName;
+
+        public String lastName;
+
+        public String email;
+
+        public String imageUrl;
+
+        public boolean activated;
+
+        public String langKey;
+
+        public Set<String> authorities = Collections.emptySet();
+    }
+}
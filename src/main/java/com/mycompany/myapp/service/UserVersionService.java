@@ -0,0 +1,197 @@
+package com.mycompany.myapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the versions of the users, used as strong ETags by the user and account reads.
+ * <p>
+ * The version of a user is a digest of their id, {@code last_modified_date} and authorities, read with
+ * a single query outside of any entity. It is cached, so that a conditional request is answered without
+ * any query, and evicted as soon as a {@link UserChangedEvent} or a {@link UsersChangedEvent} is received
+ * for the user. A read racing with such a change is not cached, thanks to a generation counter bumped
+ * on every eviction.
+ */
+@Service
+public class UserVersionService {
+
+    private static final String VERSION_QUERY =
+        "select u.id, u.login, u.last_modified_date, ua.authority_name " +
+            "from jhi_user u left join jhi_user_authority ua on ua.user_id = u.id ";
+
+    private final Logger log = LoggerFactory.getLogger(UserVersionService.class);
+
+    private final Cache<String, Entry> byLogin;
+
+    private final Cache<Long, Entry> byId;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    public UserVersionService(JdbcTemplate jdbcTemplate,
+                              @Value("${application.cache.user-version.time-to-live-seconds:300}") long timeToLiveSeconds,
+                              @Value("${application.cache.user-version.max-entries:10000}") int maxEntries,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.byLogin = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS)
+            .executor(Runnable::run)
+            .build();
+        this.byId = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS)
+            .executor(Runnable::run)
+            .build();
+        this.hits = Counter.builder("cache.user.version")
+            .tag("result", "hit")
+            .description("Lookups of the user versions used as ETags")
+            .register(meterRegistry);
+        this.misses = Counter.builder("cache.user.version")
+            .tag("result", "miss")
+            .description("Lookups of the user versions used as ETags")
+            .register(meterRegistry);
+        Gauge.builder("cache.user.version.size", byLogin, Cache::estimatedSize)
+            .description("Number of user versions cached")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @param login the lower-cased login.
+     * @return the version of the user, if any.
+     */
+    public Optional<String> findVersionByLogin(String login) {
+        return find(byLogin.getIfPresent(login), "where u.login = ?", login);
+    }
+
+    /**
+     * @param id the id of the user.
+     * @return the version of the user, if any.
+     */
+    public Optional<String> findVersionById(Long id) {
+        return find(byId.getIfPresent(id), "where u.id = ?", id);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        generation.incrementAndGet();
+        evict(event.getLogin());
+        evict(event.getPreviousLogin());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsersChanged(UsersChangedEvent event) {
+        generation.incrementAndGet();
+        for (UserChangedEvent user : event.getUsers()) {
+            evict(user.getLogin());
+        }
+    }
+
+    private void evict(String login) {
+        if (login == null) {
+            return;
+        }
+        Entry entry = byLogin.asMap().remove(login);
+        if (entry != null) {
+            byId.asMap().remove(entry.id, entry);
+        }
+    }
+
+    private Optional<String> find(Entry cached, String where, Object value) {
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached.version);
+        }
+        misses.increment();
+        long queryGeneration = generation.get();
+        Entry entry = query(where, value);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (generation.get() == queryGeneration) {
+            Entry previous = byLogin.asMap().put(entry.login, entry);
+            if (previous != null) {
+                byId.asMap().remove(previous.id, previous);
+            }
+            byId.put(entry.id, entry);
+            // An eviction between the check and the puts bumped the generation first
+            if (generation.get() != queryGeneration) {
+                byLogin.asMap().remove(entry.login, entry);
+                byId.asMap().remove(entry.id, entry);
+            }
+        }
+        return Optional.of(entry.version);
+    }
+
+    private Entry query(String where, Object value) {
+        log.debug("Loading the version of user {} {}", where, value);
+        long[] id = {-1};
+        String[] login = new String[1];
+        Timestamp[] lastModifiedDate = new Timestamp[1];
+        TreeSet<String> authorities = new TreeSet<>();
+        jdbcTemplate.query(VERSION_QUERY + where, rs -> {
+            id[0] = rs.getLong(1);
+            login[0] = rs.getString(2);
+            lastModifiedDate[0] = rs.getTimestamp(3);
+            String authority = rs.getString(4);
+            if (authority != null) {
+                authorities.add(authority);
+            }
+        }, value);
+        if (login[0] == null) {
+            return null;
+        }
+        String source = id[0] + "|" + (lastModifiedDate[0] == null ? "" : lastModifiedDate[0].toInstant().toString()) + "|" +
+            String.join(",", authorities);
+        return new Entry(id[0], login[0], digest(source));
+    }
+
+    private static String digest(String source) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+
+        private final long id;
+
+        private final String login;
+
+        private final String version;
+
+        private Entry(long id, String login, String version) {
+            this.id = id;
+            this.login = login;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.mycompany.myapp.service;
+
+import java.util.List;
+
+/**
+ * Published when many users are changed or deleted at once, e.g. by a cleanup job or a bulk operation,
+ * so that the other nodes evict them with a single batch rather than one {@link UserChangedEvent} each.
+ * <p>
+ * Like {@link UserChangedEvent}, it should be published inside the changing transaction.
+ */
+public class UsersChangedEvent {
+
+    private final List<UserChangedEvent> users;
+
+    /**
+     * @param users the changed users, with their login and email.
+     */
+    public UsersChangedEvent(List<UserChangedEvent> users) {
+        this.users = users;
+    }
+
+    public List<UserChangedEvent> getUsers() {
+        return users;
+    }
+
+    @Override
+    public String toString() {
+        return "UsersChangedEvent{" +
+            "users=" + users.size() +
+            "}";
+    }
+}
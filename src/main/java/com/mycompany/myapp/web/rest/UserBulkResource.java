@@ -0,0 +1,104 @@
+package com.mycompany.myapp.web.rest;
+
+import com.mycompany.myapp.security.AuthoritiesConstants;
+import com.mycompany.myapp.service.BulkUserOperationService;
+import com.mycompany.myapp.service.BulkUserService;
+import com.mycompany.myapp.web.rest.errors.BadRequestAlertException;
+import com.mycompany.myapp.web.rest.vm.BulkUserOperationVM;
+import com.mycompany.myapp.web.rest.vm.ManagedUserVM;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import java.util.List;
+
+/**
+ * REST controller for the bulk provisioning and administration of users.
+ */
+@RestController
+@RequestMapping("/api")
+@Validated
+public class UserBulkResource {
+
+    private static final String ENTITY_NAME = "userManagement";
+
+    private final Logger log = LoggerFactory.getLogger(UserBulkResource.class);
+
+    private final BulkUserService bulkUserService;
+
+    private final BulkUserOperationService bulkUserOperationService;
+
+    private final int maxCreatedUsers;
+
+    public UserBulkResource(BulkUserService bulkUserService, BulkUserOperationService bulkUserOperationService,
+                            @Value("${application.bulk.max-created-users:200}") int maxCreatedUsers) {
+        this.bulkUserService = bulkUserService;
+        this.bulkUserOperationService = bulkUserOperationService;
+        this.maxCreatedUsers = maxCreatedUsers;
+    }
+
+    /**
+     * {@code POST /users/bulk} : create many users at once.
+     * <p>
+     * Users whose login or email is already used are skipped. A user without password gets a random one. The
+     * passwords are hashed while the request waits, so at most {@code application.bulk.max-created-users} users
+     * can be created at once: larger files go through {@code POST /users/import}, which runs in the background.
+     *
+     * @param users the users to create.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the number of created users, with the
+     * time spent, in body.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if a user already has an ID, or if there are too many users.
+     */
+    @PostMapping("/users/bulk")
+    @PreAuthorize("hasRole(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<BulkUserService.BulkResult> createUsers(@RequestBody List<@Valid ManagedUserVM> users) {
+        log.debug("REST request to create {} users in bulk", users.size());
+        if (users.size() > maxCreatedUsers) {
+            throw new BadRequestAlertException("At most " + maxCreatedUsers + " users can be created at once", ENTITY_NAME,
+                "toomanyusers");
+        }
+        for (ManagedUserVM user : users) {
+            if (user.getId() != null) {
+                throw new BadRequestAlertException("A new user cannot already have an ID", ENTITY_NAME, "idexists");
+            }
+        }
+        return ResponseEntity.ok(bulkUserService.createUsers(users, ManagedUserVM::getPassword));
+    }
+
+    /**
+     * {@code POST /users/bulk/operations} : apply an operation to many users, selected by their logins or by a filter.
+     * <p>
+     * The current user cannot deactivate or delete themselves, nor remove one of their authorities.
+     *
+     * @param operationVM the operation, with either the logins or the filter of the users.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the outcome for each user in body.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if the users or the authority are invalid.
+     */
+    @PostMapping("/users/bulk/operations")
+    @PreAuthorize("hasRole(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<BulkUserOperationService.Result> applyOperation(@Valid @RequestBody BulkUserOperationVM operationVM) {
+        log.debug("REST request to apply a bulk operation : {}", operationVM);
+        if ((operationVM.getLogins() == null) == (operationVM.getFilter() == null)) {
+            throw new BadRequestAlertException("Either the logins or a filter must be given", ENTITY_NAME, "bulkusers");
+        }
+        try {
+            List<String> logins = operationVM.getLogins();
+            if (logins == null) {
+                BulkUserOperationVM.Filter filter = operationVM.getFilter();
+                logins = bulkUserOperationService.findLogins(filter.getActivated(), filter.getAuthority(), filter.getCreatedBefore());
+            }
+            return ResponseEntity.ok(bulkUserOperationService.apply(operationVM.getOperation(), logins, operationVM.getAuthority()));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "bulkoperation");
+        }
+    }
+}
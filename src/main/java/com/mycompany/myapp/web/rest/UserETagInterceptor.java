@@ -0,0 +1,71 @@
+package com.mycompany.myapp.web.rest;
+
+import com.mycompany.myapp.security.SecurityUtils;
+import com.mycompany.myapp.service.UserVersionService;
+import com.mycompany.myapp.web.rest.util.ETagUtil;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Answers {@code GET /api/account} and {@code GET /api/users/{login}} with a strong {@code ETag}, from the
+ * {@link UserVersionService}.
+ * <p>
+ * A request whose {@code If-None-Match} matches the current version gets a {@code 304 (Not Modified)}
+ * before the controller is called, so that neither the user is loaded nor the body serialized.
+ */
+@Component
+public class UserETagInterceptor implements HandlerInterceptor {
+
+    public static final String ACCOUNT_PATH = "/api/account";
+
+    public static final String USER_PATH = "/api/users/*";
+
+    private static final String LOGIN_VARIABLE = "login";
+
+    private final UserVersionService userVersionService;
+
+    public UserETagInterceptor(UserVersionService userVersionService) {
+        this.userVersionService = userVersionService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        Optional<String> login = getLogin(request, response);
+        Optional<String> version = login.flatMap(userVersionService::findVersionByLogin);
+        if (!version.isPresent()) {
+            return true;
+        }
+        // Lets the browsers keep the response, as long as they revalidate it
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        return !new ServletWebRequest(request, response).checkNotModified(ETagUtil.toETag(version.get()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Optional<String> getLogin(HttpServletRequest request, HttpServletResponse response) {
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables != null && variables.containsKey(LOGIN_VARIABLE)) {
+            return Optional.of(variables.get(LOGIN_VARIABLE).toLowerCase(Locale.ENGLISH));
+        }
+        if (request.getRequestURI().equals(request.getContextPath() + ACCOUNT_PATH)) {
+            // The account depends on the token, not only on the URL
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION);
+            return SecurityUtils.getCurrentUserLogin();
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,72 @@
+package com.mycompany.myapp.web.rest;
+
+import com.mycompany.myapp.security.AuthoritiesConstants;
+import com.mycompany.myapp.service.UserExportService;
+import com.mycompany.myapp.web.rest.errors.BadRequestAlertException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * REST controller exporting all the users in one response.
+ */
+@RestController
+@RequestMapping("/api")
+public class UserExportResource {
+
+    private static final String ENTITY_NAME = "userManagement";
+
+    private final Logger log = LoggerFactory.getLogger(UserExportResource.class);
+
+    private final UserExportService userExportService;
+
+    public UserExportResource(UserExportService userExportService) {
+        this.userExportService = userExportService;
+    }
+
+    /**
+     * {@code GET /users/export} : export all the users, streamed as they are read from the database.
+     *
+     * @param format the format of the export, {@code ndjson} or {@code csv}.
+     * @param gzip whether to compress the export.
+     * @param response the response to stream the users to.
+     * @throws IOException if the response cannot be written.
+     */
+    @GetMapping("/users/export")
+    @PreAuthorize("hasRole(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public void exportUsers(@RequestParam(defaultValue = "ndjson") String format,
+                            @RequestParam(defaultValue = "false") boolean gzip,
+                            HttpServletResponse response) throws IOException {
+        log.debug("REST request to export the users in {}, gzip: {}", format, gzip);
+        UserExportService.Format exportFormat;
+        try {
+            exportFormat = UserExportService.Format.valueOf(format.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Unsupported export format: " + format, ENTITY_NAME, "exportformat");
+        }
+        String filename = "users." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : exportFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192, true);
+            userExportService.export(exportFormat, gzipOut);
+            gzipOut.finish();
+        } else {
+            userExportService.export(exportFormat, out);
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,64 @@
+package com.mycompany.myapp.web.rest;
+
+import com.mycompany.myapp.service.UserVersionService;
+import com.mycompany.myapp.service.dto.UserDTO;
+import com.mycompany.myapp.web.rest.util.ETagUtil;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+
+/**
+ * Honours {@code If-Match} on the updates of a user, e.g. {@code PUT /api/users}.
+ * <p>
+ * The ETag of {@code GET /api/users/{login}} is compared, as soon as the body is read, with the current
+ * version of the user from the {@link UserVersionService}: a concurrent change is answered with a
+ * {@code 412 (Precondition Failed)} without loading the user.
+ */
+@ControllerAdvice
+public class UserIfMatchAdvice extends RequestBodyAdviceAdapter {
+
+    private final UserVersionService userVersionService;
+
+    public UserIfMatchAdvice(UserVersionService userVersionService) {
+        this.userVersionService = userVersionService;
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return methodParameter.getParameterType().equals(UserDTO.class);
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        String ifMatch = inputMessage.getHeaders().getFirst(HttpHeaders.IF_MATCH);
+        if (ifMatch == null || !isPut()) {
+            return body;
+        }
+        Long id = ((UserDTO) body).getId();
+        String etag = id == null ? null : userVersionService.findVersionById(id).map(ETagUtil::toETag).orElse(null);
+        if (!ETagUtil.ifMatch(ifMatch, etag)) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "The user has been changed since it was read");
+        }
+        return body;
+    }
+
+    private static boolean isPut() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes &&
+            HttpMethod.PUT.matches(((ServletRequestAttributes) attributes).getRequest().getMethod());
+    }
+}
@@ -0,0 +1,78 @@
+package com.mycompany.myapp.web.rest;
+
+import com.mycompany.myapp.security.AuthoritiesConstants;
+import com.mycompany.myapp.service.UserImportService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * REST controller for the bulk import of users.
+ */
+@RestController
+@RequestMapping("/api")
+public class UserImportResource {
+
+    private final Logger log = LoggerFactory.getLogger(UserImportResource.class);
+
+    private final UserImportService userImportService;
+
+    public UserImportResource(UserImportService userImportService) {
+        this.userImportService = userImportService;
+    }
+
+    /**
+     * {@code POST /users/import} : start importing the users of a JSON file.
+     * <p>
+     * The file is stored in a temporary file, and imported in the background.
+     *
+     * @param file the JSON array of users.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and the status of the import in body,
+     * or with status {@code 409 (Conflict)} if an import is already running.
+     * @throws IOException if the file cannot be stored.
+     */
+    @PostMapping("/users/import")
+    @PreAuthorize("hasRole(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<UserImportService.ImportStatus> importUsers(@RequestParam("file") MultipartFile file) throws IOException {
+        log.debug("REST request to import the users of {}", file.getOriginalFilename());
+        File stored = File.createTempFile("users-import-", ".json");
+        file.transferTo(stored);
+        Runnable cleanUp = () -> {
+            try {
+                Files.deleteIfExists(stored.toPath());
+            } catch (IOException e) {
+                log.warn("Could not delete {}", stored, e);
+            }
+        };
+        if (!userImportService.startImport(new FileSystemResource(stored), cleanUp)) {
+            cleanUp.run();
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(userImportService.getStatus());
+        }
+        return ResponseEntity.accepted().body(userImportService.getStatus());
+    }
+
+    /**
+     * {@code GET /users/import} : get the progress of the last import.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the status of the import in body.
+     */
+    @GetMapping("/users/import")
+    @PreAuthorize("hasRole(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<UserImportService.ImportStatus> getImportStatus() {
+        return ResponseEntity.ok(userImportService.getStatus());
+    }
+}
@@ -0,0 +1,136 @@
+package com.mycompany.myapp.web.rest;
+
+import com.mycompany.myapp.domain.UserLogin;
+import com.mycompany.myapp.repository.UserKeysetRepository;
+import com.mycompany.myapp.service.dto.UserDTO;
+import com.mycompany.myapp.web.rest.errors.BadRequestAlertException;
+import com.mycompany.myapp.web.rest.util.KeysetCursor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * REST controller listing the users with keyset pagination.
+ * <p>
+ * This is the cursor mode of {@code GET /api/users}, selected by the {@code after} or {@code before}
+ * parameter: {@code after=} (empty) reads the first page, then the tokens of the {@code X-Next-Cursor} and
+ * {@code X-Previous-Cursor} headers are passed back as {@code after} and {@code before}. The same URLs
+ * are in the {@code Link} header. Without these parameters, {@link UserLoginResource} serves the offset
+ * mode, with its {@code X-Total-Count}.
+ */
+@RestController
+@RequestMapping("/api")
+public class UserKeysetResource {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final String PREVIOUS_CURSOR_HEADER = "X-Previous-Cursor";
+
+    private static final String ENTITY_NAME = "userManagement";
+
+    private final Logger log = LoggerFactory.getLogger(UserKeysetResource.class);
+
+    private final UserKeysetRepository userKeysetRepository;
+
+    public UserKeysetResource(UserKeysetRepository userKeysetRepository) {
+        this.userKeysetRepository = userKeysetRepository;
+    }
+
+    /**
+     * {@code GET /users?after=:cursor} : get the users following a cursor.
+     *
+     * @param after the cursor, empty for the first page.
+     * @param pageable the size of the page and its sort, on {@code id} or {@code login}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the users in body.
+     */
+    @GetMapping(value = "/users", params = "after")
+    public ResponseEntity<List<UserDTO>> getUsersAfter(@RequestParam String after, Pageable pageable) {
+        log.debug("REST request to get the users after cursor {}", after);
+        return getPage(after, false, pageable);
+    }
+
+    /**
+     * {@code GET /users?before=:cursor} : get the users preceding a cursor.
+     *
+     * @param before the cursor.
+     * @param pageable the size of the page and its sort, on {@code id} or {@code login}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the users in body.
+     */
+    @GetMapping(value = "/users", params = "before")
+    public ResponseEntity<List<UserDTO>> getUsersBefore(@RequestParam String before, Pageable pageable) {
+        log.debug("REST request to get the users before cursor {}", before);
+        return getPage(before, true, pageable);
+    }
+
+    private ResponseEntity<List<UserDTO>> getPage(String token, boolean backward, Pageable pageable) {
+        Sort.Order order = pageable.getSort().stream()
+            .findFirst()
+            .orElse(Sort.Order.asc("id"));
+        String property = order.getProperty();
+        if (!UserKeysetRepository.SORT_PROPERTIES.contains(property)) {
+            throw new BadRequestAlertException("Cursor pagination is only sorted by " + UserKeysetRepository.SORT_PROPERTIES,
+                ENTITY_NAME, "cursorsort");
+        }
+        KeysetCursor cursor = null;
+        if (!token.isEmpty()) {
+            cursor = KeysetCursor.decode(token)
+                .filter(decoded -> decoded.getProperty().equals(property))
+                .orElseThrow(() -> new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid"));
+        } else if (backward) {
+            throw new BadRequestAlertException("The before cursor is required", ENTITY_NAME, "cursorinvalid");
+        }
+
+        int size = pageable.getPageSize();
+        List<UserLogin> users = new ArrayList<>(userKeysetRepository.findPage(property, order.isAscending(),
+            cursor == null ? null : cursor.getId(), cursor == null ? null : cursor.getValue(), backward, size + 1));
+        boolean hasMore = users.size() > size;
+        if (hasMore) {
+            users.remove(backward ? 0 : users.size() - 1);
+        }
+        boolean hasNext = backward || hasMore;
+        boolean hasPrevious = backward ? hasMore : cursor != null;
+
+        HttpHeaders headers = new HttpHeaders();
+        List<String> links = new ArrayList<>();
+        if (!users.isEmpty() && hasNext) {
+            String next = cursorOf(users.get(users.size() - 1), property).encode();
+            headers.add(NEXT_CURSOR_HEADER, next);
+            links.add(link("after", next, "next"));
+        }
+        if (!users.isEmpty() && hasPrevious) {
+            String previous = cursorOf(users.get(0), property).encode();
+            headers.add(PREVIOUS_CURSOR_HEADER, previous);
+            links.add(link("before", previous, "prev"));
+        }
+        if (!links.isEmpty()) {
+            headers.add(HttpHeaders.LINK, String.join(",", links));
+        }
+        return ResponseEntity.ok().headers(headers).body(users.stream().map(UserDTO::new).collect(Collectors.toList()));
+    }
+
+    private static KeysetCursor cursorOf(UserLogin user, String property) {
+        return new KeysetCursor(property, user.getId(), "id".equals(property) ? String.valueOf(user.getId()) : user.getLogin());
+    }
+
+    private static String link(String parameter, String token, String relation) {
+        String uri = ServletUriComponentsBuilder.fromCurrentRequest()
+            .replaceQueryParam("after")
+            .replaceQueryParam("before")
+            .replaceQueryParam(parameter, token)
+            .toUriString();
+        return "<" + uri + ">; rel=\"" + relation + "\"";
+    }
+}
@@ -0,0 +1,40 @@
+package com.mycompany.myapp.web.rest.util;
+
+/**
+ * Utility class for the strong ETags of the user and account resources.
+ */
+public final class ETagUtil {
+
+    private static final String ANY = "*";
+
+    private ETagUtil() {
+    }
+
+    /**
+     * @param version the version of the resource.
+     * @return the strong ETag, quoted.
+     */
+    public static String toETag(String version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Checks an {@code If-Match} header, with the strong comparison: weak ETags never match.
+     *
+     * @param ifMatch the value of the header, e.g. {@code "v1", "v2"} or {@code *}.
+     * @param etag the current strong ETag of the resource, {@code null} if it does not exist.
+     * @return whether the precondition is met.
+     */
+    public static boolean ifMatch(String ifMatch, String etag) {
+        if (etag == null) {
+            return false;
+        }
+        for (String candidate : ifMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (ANY.equals(trimmed) || etag.equals(trimmed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
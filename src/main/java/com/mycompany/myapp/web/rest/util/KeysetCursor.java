@@ -0,0 +1,79 @@
+package com.mycompany.myapp.web.rest.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Opaque position in a listing sorted by a property then by id, for keyset pagination.
+ * <p>
+ * The token is the base64url encoding of {@code property|id|value}, so that a cursor built for one sort
+ * cannot be used with another one.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String property;
+
+    private final long id;
+
+    private final String value;
+
+    public KeysetCursor(String property, long id, String value) {
+        this.property = property;
+        this.id = id;
+        this.value = value;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return the opaque token of this cursor.
+     */
+    public String encode() {
+        String raw = property + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token returned by {@link #encode()}.
+     *
+     * @param token the token.
+     * @return the cursor, or empty if the token is blank or malformed.
+     */
+    public static Optional<KeysetCursor> decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 3);
+            if (parts.length != 3) {
+                return Optional.empty();
+            }
+            return Optional.of(new KeysetCursor(parts[0], Long.parseLong(parts[1]), parts[2]));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor{" +
+            "property='" + property + '\'' +
+            ", id=" + id +
+            ", value='" + value + '\'' +
+            "}";
+    }
+}
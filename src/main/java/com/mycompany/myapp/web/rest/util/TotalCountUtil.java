@@ -0,0 +1,64 @@
+package com.mycompany.myapp.web.rest.util;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Utility class for the total counts of the paginated listings.
+ * <p>
+ * A client opts into an approximate {@code X-Total-Count} with the {@code approximateCount=true} parameter,
+ * or the {@code X-Count-Mode: approximate} header. The response then has an {@code X-Total-Count-Approximate}
+ * header.
+ */
+public final class TotalCountUtil {
+
+    public static final String APPROXIMATE_PARAMETER = "approximateCount";
+
+    public static final String COUNT_MODE_HEADER = "X-Count-Mode";
+
+    public static final String APPROXIMATE_HEADER = "X-Total-Count-Approximate";
+
+    private static final String APPROXIMATE = "approximate";
+
+    private TotalCountUtil() {
+    }
+
+    /**
+     * @param request the request of a paginated listing.
+     * @return whether the client accepts an approximate total count.
+     */
+    public static boolean isApproximate(HttpServletRequest request) {
+        return Boolean.parseBoolean(request.getParameter(APPROXIMATE_PARAMETER)) ||
+            APPROXIMATE.equalsIgnoreCase(request.getHeader(COUNT_MODE_HEADER));
+    }
+
+    /**
+     * Turns a slice, read without any {@code COUNT(*)}, into a page with the given total.
+     *
+     * @param slice the slice.
+     * @param total the total count, e.g. from {@code TotalCountService}.
+     * @param <T> the type of the content.
+     * @return the page, to give to {@code PaginationUtil.generatePaginationHttpHeaders}.
+     */
+    public static <T> Page<T> withTotal(Slice<T> slice, long total) {
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), total);
+    }
+
+    /**
+     * Adds the {@code X-Total-Count-Approximate} header when the count is approximate.
+     *
+     * @param headers the pagination headers.
+     * @param approximate whether the total count is approximate.
+     * @return the headers.
+     */
+    public static HttpHeaders withCountMode(HttpHeaders headers, boolean approximate) {
+        if (approximate) {
+            headers.add(APPROXIMATE_HEADER, Boolean.TRUE.toString());
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,109 @@
+package com.mycompany.myapp.web.rest.vm;
+
+import com.mycompany.myapp.service.BulkUserOperationService.Operation;
+
+import javax.validation.constraints.NotNull;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * View Model of an operation applied to many users, selected either by their logins or by a filter.
+ */
+public class BulkUserOperationVM {
+
+    @NotNull
+    private Operation operation;
+
+    private String authority;
+
+    private List<String> logins;
+
+    private Filter filter;
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(Operation operation) {
+        this.operation = operation;
+    }
+
+    public String getAuthority() {
+        return authority;
+    }
+
+    public void setAuthority(String authority) {
+        this.authority = authority;
+    }
+
+    public List<String> getLogins() {
+        return logins;
+    }
+
+    public void setLogins(List<String> logins) {
+        this.logins = logins;
+    }
+
+    public Filter getFilter() {
+        return filter;
+    }
+
+    public void setFilter(Filter filter) {
+        this.filter = filter;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkUserOperationVM{" +
+            "operation=" + operation +
+            ", authority='" + authority + '\'' +
+            ", logins=" + (logins == null ? null : logins.size()) +
+            ", filter=" + filter +
+            "}";
+    }
+
+    /**
+     * Selects the users, every criterion being optional.
+     */
+    public static class Filter {
+
+        private Boolean activated;
+
+        private String authority;
+
+        private Instant createdBefore;
+
+        public Boolean getActivated() {
+            return activated;
+        }
+
+        public void setActivated(Boolean activated) {
+            this.activated = activated;
+        }
+
+        public String getAuthority() {
+            return authority;
+        }
+
+        public void setAuthority(String authority) {
+            this.authority = authority;
+        }
+
+        public Instant getCreatedBefore() {
+            return createdBefore;
+        }
+
+        public void setCreatedBefore(Instant createdBefore) {
+            this.createdBefore = createdBefore;
+        }
+
+        @Override
+        public String toString() {
+            return "Filter{" +
+                "activated=" + activated +
+                ", authority='" + authority + '\'' +
+                ", createdBefore=" + createdBefore +
+                "}";
+        }
+    }
+}
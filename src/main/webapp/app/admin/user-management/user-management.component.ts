@@ -30,6 +30,10 @@ export class UserManagementComponent implements OnInit, OnDestroy {
   predicate: any;
   previousPage: any;
   reverse: any;
+  cursorMode = false;
+  cursor: { after?: string; before?: string } = { after: '' };
+  nextCursor: string;
+  previousCursor: string;
 
   constructor(
     private userService: UserService,
@@ -86,15 +90,40 @@ export class UserManagementComponent implements OnInit, OnDestroy {
   }
 
   loadAll() {
+    const paging = this.useCursor() ? this.cursor : { page: this.page - 1 };
     this.userService
       .query({
-        page: this.page - 1,
+        ...paging,
         size: this.itemsPerPage,
         sort: this.sort()
       })
       .subscribe((res: HttpResponse<User[]>) => this.onSuccess(res.body, res.headers), (res: HttpResponse<any>) => this.onError(res.body));
   }
 
+  isCursorSortable() {
+    return this.predicate === 'id' || this.predicate === 'login';
+  }
+
+  useCursor() {
+    return this.cursorMode && this.isCursorSortable();
+  }
+
+  toggleCursorMode() {
+    this.cursorMode = !this.cursorMode;
+    this.cursor = { after: '' };
+    this.loadAll();
+  }
+
+  loadNextPage() {
+    this.cursor = { after: this.nextCursor };
+    this.loadAll();
+  }
+
+  loadPreviousPage() {
+    this.cursor = { before: this.previousCursor };
+    this.loadAll();
+  }
+
   trackIdentity(index, item: User) {
     return item.id;
   }
@@ -115,6 +144,7 @@ export class UserManagementComponent implements OnInit, OnDestroy {
   }
 
   transition() {
+    this.cursor = { after: '' };
     this.router.navigate(['./'], {
       relativeTo: this.activatedRoute.parent,
       queryParams: {
@@ -133,6 +163,8 @@ export class UserManagementComponent implements OnInit, OnDestroy {
   private onSuccess(data, headers) {
     this.links = this.parseLinks.parse(headers.get('link'));
     this.totalItems = headers.get('X-Total-Count');
+    this.nextCursor = headers.get('X-Next-Cursor');
+    this.previousCursor = headers.get('X-Previous-Cursor');
     this.users = data;
   }
 
@@ -8,6 +8,7 @@ import {
   faBan,
   faTimes,
   faArrowLeft,
+  faArrowRight,
   faSave,
   faPlus,
   faPencilAlt,
@@ -45,6 +46,7 @@ export const fontAwesomeIcons = [
   faBan,
   faTimes,
   faArrowLeft,
+  faArrowRight,
   faSave,
   faPlus,
   faPencilAlt,
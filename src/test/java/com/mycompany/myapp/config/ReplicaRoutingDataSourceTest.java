@@ -0,0 +1,124 @@
+package com.mycompany.myapp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link ReplicaRoutingDataSource}, over two H2 databases.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private static final long READ_YOUR_WRITES_MILLIS = 60000;
+
+    private MeterRegistry meterRegistry;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readWrite;
+
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    public void setup() {
+        DataSource primary = database("routingPrimary", "primary");
+        DataSource replica = database("routingReplica", "replica");
+        meterRegistry = new SimpleMeterRegistry();
+        routingDataSource = new ReplicaRoutingDataSource(primary, Arrays.asList(replica), READ_YOUR_WRITES_MILLIS,
+            100, meterRegistry);
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static DataSource database(String name, String role) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists routing_role (role varchar(10))");
+        jdbcTemplate.update("delete from routing_role");
+        jdbcTemplate.update("insert into routing_role (role) values (?)", role);
+        return dataSource;
+    }
+
+    private static void authenticate(String login) {
+        SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+        securityContext.setAuthentication(new UsernamePasswordAuthenticationToken(login, login));
+        SecurityContextHolder.setContext(securityContext);
+    }
+
+    private String role() {
+        return jdbcTemplate.queryForObject("select role from routing_role", String.class);
+    }
+
+    private double routings(String target, String reason) {
+        return meterRegistry.get("datasource.routing").tag("target", target).tag("reason", reason).counter().count();
+    }
+
+    @Test
+    public void testReadOnlyTransactionsGoToTheReplica() {
+        assertThat(readOnly.execute(status -> role())).isEqualTo("replica");
+        assertThat(routings("replica-1", "read-only")).isEqualTo(1);
+    }
+
+    @Test
+    public void testCacheFillingReadsGoToThePrimary() {
+        assertThat(ReplicaRoutingDataSource.readFromPrimary(() -> readOnly.execute(status -> role()))).isEqualTo("primary");
+        assertThat(routings("primary", "cache-fill")).isEqualTo(1);
+        assertThat(readOnly.execute(status -> role())).isEqualTo("replica");
+    }
+
+    @Test
+    public void testReadWriteTransactionsAndNonTransactionalWorkGoToThePrimary() {
+        assertThat(readWrite.execute(status -> role())).isEqualTo("primary");
+        assertThat(role()).isEqualTo("primary");
+        assertThat(routings("primary", "read-write")).isEqualTo(1);
+        assertThat(routings("primary", "no-transaction")).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void testUserReadsTheirWritesFromThePrimary() {
+        authenticate("writer");
+        readWrite.execute(status -> jdbcTemplate.update("update routing_role set role = role"));
+        assertThat(readOnly.execute(status -> role())).isEqualTo("primary");
+        assertThat(routings("primary", "read-your-writes")).isEqualTo(1);
+
+        authenticate("reader");
+        assertThat(readOnly.execute(status -> role())).isEqualTo("replica");
+    }
+
+    @Test
+    public void testRolledBackWritesDoNotPinTheUserToThePrimary() {
+        authenticate("writer");
+        readWrite.execute(status -> {
+            status.setRollbackOnly();
+            return jdbcTemplate.update("update routing_role set role = role");
+        });
+        assertThat(readOnly.execute(status -> role())).isEqualTo("replica");
+    }
+}
@@ -0,0 +1,103 @@
+package com.mycompany.myapp.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link TwoLevelCache}.
+ */
+public class TwoLevelCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ConcurrentMapCache l2;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        l2 = new ConcurrentMapCache("usersByLogin");
+    }
+
+    @Test
+    public void testConcurrentMissesAreLoadedOnce() throws Exception {
+        TwoLevelCache cache = new TwoLevelCache(l2, 100, Duration.ofMinutes(1), meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> cache.get("johndoe", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                release.await();
+                return "value";
+            }));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<String> second = executor.submit(() -> cache.get("johndoe", () -> {
+                loads.incrementAndGet();
+                return "other";
+            }));
+            while (meterRegistry.get("cache.two.level.coalesced").counter().count() == 0) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+            assertThat(loads).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testStaleValueIsRefreshedFromTheL2() throws Exception {
+        TwoLevelCache cache = new TwoLevelCache(l2, 100, Duration.ofMillis(1), Duration.ofHours(1), Runnable::run, meterRegistry);
+        cache.put("johndoe", "old");
+        l2.put("johndoe", "changed");
+        Thread.sleep(5);
+
+        assertThat(cache.get("johndoe", () -> "loaded")).isEqualTo("changed");
+        assertThat(meterRegistry.get("cache.two.level.refresh").timer().count()).isEqualTo(0);
+        assertThat(meterRegistry.get("cache.two.level.load").timer().count()).isEqualTo(0);
+    }
+
+    @Test
+    public void testStaleValueIsServedWhileRefreshed() throws Exception {
+        TwoLevelCache cache = new TwoLevelCache(l2, 100, Duration.ofMillis(1), Duration.ofHours(1), Runnable::run, meterRegistry);
+        cache.put("johndoe", "old");
+        // Expired from the L2
+        l2.evict("johndoe");
+        Thread.sleep(5);
+
+        assertThat(cache.get("johndoe", () -> "new")).isEqualTo("old");
+        assertThat(l2.get("johndoe").get()).isEqualTo("new");
+        assertThat(meterRegistry.get("cache.two.level.refresh").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEvictionDuringLoadIsNotOverwritten() {
+        TwoLevelCache cache = new TwoLevelCache(l2, 100, Duration.ofMinutes(1), meterRegistry);
+
+        String loaded = cache.get("johndoe", () -> {
+            cache.evict("johndoe");
+            return "value";
+        });
+
+        assertThat(loaded).isEqualTo("value");
+        assertThat(l2.get("johndoe")).isNull();
+        assertThat(cache.get("johndoe", () -> "reloaded")).isEqualTo("reloaded");
+    }
+}
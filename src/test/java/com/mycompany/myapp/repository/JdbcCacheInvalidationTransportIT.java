@@ -0,0 +1,106 @@
+package com.mycompany.myapp.repository;
+
+import com.mycompany.myapp.JhipsterSampleApplicationApp;
+import com.mycompany.myapp.repository.CacheInvalidationTransport.CacheInvalidation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link JdbcCacheInvalidationTransport}, with two nodes sharing the test database.
+ */
+@SpringBootTest(classes = JhipsterSampleApplicationApp.class)
+public class JdbcCacheInvalidationTransportIT {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private JdbcCacheInvalidationTransport firstNode;
+
+    private JdbcCacheInvalidationTransport secondNode;
+
+    @BeforeEach
+    public void setup() {
+        jdbcTemplate.update("delete from jhi_cache_invalidation");
+        firstNode = new JdbcCacheInvalidationTransport(jdbcTemplate, "first-node", 500, 3600, 0);
+        secondNode = new JdbcCacheInvalidationTransport(jdbcTemplate, "second-node", 500, 3600, 0);
+        firstNode.poll();
+        secondNode.poll();
+    }
+
+    @Test
+    public void testInvalidationsAreDeliveredToTheOtherNode() {
+        firstNode.publish(Arrays.asList(
+            new CacheInvalidation(UserLoginRepository.USERS_BY_LOGIN_CACHE, "johndoe"),
+            new CacheInvalidation(UserLoginRepository.USERS_BY_EMAIL_CACHE, "johndoe@localhost")));
+
+        List<CacheInvalidation> received = secondNode.poll();
+
+        assertThat(received).extracting(CacheInvalidation::getKey).containsExactly("johndoe", "johndoe@localhost");
+        assertThat(firstNode.poll()).isEmpty();
+        assertThat(secondNode.poll()).isEmpty();
+    }
+
+    @Test
+    public void testInvalidationsPublishedBeforeStartupAreIgnored() {
+        firstNode.publish(Collections.singletonList(new CacheInvalidation(UserLoginRepository.USERS_BY_LOGIN_CACHE, "johndoe")));
+        JdbcCacheInvalidationTransport newNode = new JdbcCacheInvalidationTransport(jdbcTemplate, "new-node", 500, 3600, 0);
+
+        assertThat(newNode.poll()).isEmpty();
+        firstNode.publish(Collections.singletonList(new CacheInvalidation(UserLoginRepository.USERS_BY_LOGIN_CACHE, "jhipster")));
+        assertThat(newNode.poll()).extracting(CacheInvalidation::getKey).containsExactly("jhipster");
+    }
+
+    @Test
+    public void testInvalidationsOfTheSettleWindowAreDeliveredAtStartup() {
+        jdbcTemplate.update("insert into jhi_cache_invalidation (cache_name, cache_key, origin, created_date) values (?, ?, ?, ?)",
+            UserLoginRepository.USERS_BY_LOGIN_CACHE, "settled", "first-node", Timestamp.from(Instant.now().minusSeconds(120)));
+        firstNode.publish(Collections.singletonList(new CacheInvalidation(UserLoginRepository.USERS_BY_LOGIN_CACHE, "johndoe")));
+        JdbcCacheInvalidationTransport newNode = new JdbcCacheInvalidationTransport(jdbcTemplate, "new-node", 500, 3600, 60);
+
+        assertThat(newNode.poll()).extracting(CacheInvalidation::getKey).containsExactly("johndoe");
+        assertThat(newNode.poll()).isEmpty();
+    }
+
+    @Test
+    public void testSettleWindowDoesNotDelayNewerInvalidations() {
+        JdbcCacheInvalidationTransport node = new JdbcCacheInvalidationTransport(jdbcTemplate, "node", 2, 3600, 60);
+        node.poll();
+        firstNode.publish(Arrays.asList(
+            new CacheInvalidation(UserLoginRepository.USERS_BY_LOGIN_CACHE, "first"),
+            new CacheInvalidation(UserLoginRepository.USERS_BY_LOGIN_CACHE, "second"),
+            new CacheInvalidation(UserLoginRepository.USERS_BY_LOGIN_CACHE, "third")));
+
+        assertThat(node.poll()).extracting(CacheInvalidation::getKey).containsExactly("first", "second");
+        assertThat(node.poll()).extracting(CacheInvalidation::getKey).containsExactly("third");
+        assertThat(node.poll()).isEmpty();
+    }
+
+    @Test
+    public void testInvalidationCommittedAfterAHigherIdIsDelivered() {
+        JdbcCacheInvalidationTransport node = new JdbcCacheInvalidationTransport(jdbcTemplate, "node", 500, 3600, 60);
+        node.poll();
+        firstNode.publish(Arrays.asList(
+            new CacheInvalidation(UserLoginRepository.USERS_BY_LOGIN_CACHE, "late"),
+            new CacheInvalidation(UserLoginRepository.USERS_BY_LOGIN_CACHE, "early")));
+        Long lateId = jdbcTemplate.queryForObject("select id from jhi_cache_invalidation where cache_key = 'late'", Long.class);
+        // As if the row of the lower id was committed after the poll
+        jdbcTemplate.update("delete from jhi_cache_invalidation where id = ?", lateId);
+
+        assertThat(node.poll()).extracting(CacheInvalidation::getKey).containsExactly("early");
+        jdbcTemplate.update("insert into jhi_cache_invalidation (id, cache_name, cache_key, origin, created_date) values (?, ?, ?, ?, ?)",
+            lateId, UserLoginRepository.USERS_BY_LOGIN_CACHE, "late", "first-node", Timestamp.from(Instant.now()));
+        assertThat(node.poll()).extracting(CacheInvalidation::getKey).containsExactly("late");
+        assertThat(node.poll()).isEmpty();
+    }
+}
@@ -0,0 +1,101 @@
+package com.mycompany.myapp.repository;
+
+import com.mycompany.myapp.JhipsterSampleApplicationApp;
+import com.mycompany.myapp.config.Constants;
+import com.mycompany.myapp.security.AuthoritiesConstants;
+import com.mycompany.myapp.service.dto.UserDTO;
+import com.mycompany.myapp.web.rest.errors.BadRequestAlertException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Integration tests for {@link UserDTORepository}.
+ */
+@SpringBootTest(classes = JhipsterSampleApplicationApp.class)
+public class UserDTORepositoryIT {
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final AtomicInteger statements = new AtomicInteger();
+
+    private UserDTORepository userDTORepository;
+
+    @BeforeEach
+    public void setup() {
+        userDTORepository = new UserDTORepository(new JdbcTemplate(new StatementCountingDataSource(dataSource, statements)));
+        statements.set(0);
+    }
+
+    @Test
+    public void testPageCostsTwoStatements() {
+        Slice<UserDTO> users = userDTORepository.findAllManaged(PageRequest.of(0, 2, Sort.by("id")));
+
+        assertThat(statements).hasValue(2);
+        assertThat(users.getContent()).extracting(UserDTO::getLogin).containsExactly("system", "admin");
+        assertThat(users.getContent()).extracting(UserDTO::getLogin).doesNotContain(Constants.ANONYMOUS_USER);
+        assertThat(users.getContent().get(1).getAuthorities()).contains(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER);
+        assertThat(users.hasNext()).isTrue();
+    }
+
+    @Test
+    public void testLastPage() {
+        Slice<UserDTO> users = userDTORepository.findAllManaged(PageRequest.of(1, 2, Sort.by("id")));
+
+        assertThat(statements).hasValue(2);
+        assertThat(users.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testUnsupportedSortIsRejected() {
+        assertThatThrownBy(() -> userDTORepository.findAllManaged(PageRequest.of(0, 2, Sort.by("password"))))
+            .isInstanceOf(BadRequestAlertException.class);
+        assertThat(statements).hasValue(0);
+    }
+
+    /**
+     * {@link DataSource} counting the statements prepared on its connections.
+     */
+    private static class StatementCountingDataSource extends DelegatingDataSource {
+
+        private final AtomicInteger statements;
+
+        StatementCountingDataSource(DataSource dataSource, AtomicInteger statements) {
+            super(dataSource);
+            this.statements = statements;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement") || method.getName().equals("createStatement")) {
+                        statements.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        }
+    }
+}
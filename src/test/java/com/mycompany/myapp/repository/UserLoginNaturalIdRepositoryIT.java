@@ -0,0 +1,132 @@
+package com.mycompany.myapp.repository;
+
+import com.mycompany.myapp.JhipsterSampleApplicationApp;
+import com.mycompany.myapp.domain.UserLogin;
+import com.mycompany.myapp.repository.CacheInvalidationTransport.CacheInvalidation;
+import com.mycompany.myapp.service.CacheInvalidationBus;
+import com.mycompany.myapp.service.UserCacheEvictionService;
+import com.mycompany.myapp.service.UserCacheEvictionService.EvictedUser;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link UserLoginNaturalIdRepository}, with the second-level cache enabled.
+ */
+@SpringBootTest(classes = JhipsterSampleApplicationApp.class, properties = {
+    "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class UserLoginNaturalIdRepositoryIT {
+
+    private static final long ID = 990301L;
+
+    private static final long OTHER_ID = 990302L;
+
+    private static final String LOGIN = "natural-id-user";
+
+    private static final String OTHER_LOGIN = "natural-id-other";
+
+    private static final String PASSWORD_HASH = RandomStringUtils.randomAlphanumeric(60);
+
+    @Autowired
+    private UserLoginRepository userLoginRepository;
+
+    @Autowired
+    private UserCacheEvictionService userCacheEvictionService;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setup() {
+        insertUser(ID, LOGIN);
+        insertUser(OTHER_ID, OTHER_LOGIN);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from jhi_user where id in (?, ?)", ID, OTHER_ID);
+        userCacheEvictionService.evict(Arrays.asList(
+            new EvictedUser(ID, LOGIN, null), new EvictedUser(OTHER_ID, OTHER_LOGIN, null)));
+    }
+
+    private void insertUser(long id, String login) {
+        jdbcTemplate.update("insert into jhi_user (id, login, password_hash, activated, created_by) values (?, ?, ?, true, 'system')",
+            id, login, PASSWORD_HASH);
+    }
+
+    @Test
+    public void testWarmLookupsDoNotQueryTheDatabase() {
+        assertThat(userLoginRepository.findOneByLogin(LOGIN)).isPresent();
+        long executions = statistics.getNaturalIdQueryExecutionCount();
+
+        assertThat(userLoginRepository.findOneByLogin(LOGIN)).isPresent();
+
+        assertThat(statistics.getNaturalIdCacheHitCount()).isGreaterThan(0);
+        assertThat(statistics.getNaturalIdQueryExecutionCount()).isEqualTo(executions);
+    }
+
+    @Test
+    public void testEvictionOnlyEvictsTheChangedLogin() {
+        assertThat(userLoginRepository.findOneByLogin(LOGIN)).isPresent();
+        assertThat(userLoginRepository.findOneByLogin(OTHER_LOGIN)).isPresent();
+        jdbcTemplate.update("update jhi_user set activated = false where id = ?", ID);
+
+        userCacheEvictionService.evict(Collections.singletonList(new EvictedUser(ID, LOGIN, null)));
+        long hits = statistics.getNaturalIdCacheHitCount();
+
+        assertThat(userLoginRepository.findOneByLogin(LOGIN)).map(UserLogin::getActivated).contains(false);
+        assertThat(userLoginRepository.findOneByLogin(OTHER_LOGIN)).isPresent();
+        assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void testChangesOfAnotherNodeAreEvictedFromTheSecondLevelCache() {
+        assertThat(userLoginRepository.findOneByLogin(LOGIN)).map(UserLogin::getActivated).contains(true);
+        // Changed by another node: the stale user is still served from the second-level cache
+        jdbcTemplate.update("update jhi_user set activated = false where id = ?", ID);
+        assertThat(userLoginRepository.findOneByLogin(LOGIN)).map(UserLogin::getActivated).contains(true);
+
+        new JdbcCacheInvalidationTransport(jdbcTemplate, 500, 3600, 0)
+            .publish(Collections.singletonList(new CacheInvalidation(UserLoginRepository.USERS_BY_LOGIN_CACHE, LOGIN)));
+        cacheInvalidationBus.applyRemoteInvalidations();
+
+        assertThat(userLoginRepository.findOneByLogin(LOGIN)).map(UserLogin::getActivated).contains(false);
+    }
+
+    @Test
+    public void testDeletesOfAnotherNodeAreEvictedFromTheSecondLevelCache() {
+        assertThat(userLoginRepository.findOneByLogin(LOGIN)).isPresent();
+        jdbcTemplate.update("delete from jhi_user where id = ?", ID);
+
+        new JdbcCacheInvalidationTransport(jdbcTemplate, 500, 3600, 0)
+            .publish(Collections.singletonList(new CacheInvalidation(UserLoginRepository.USERS_BY_LOGIN_CACHE, LOGIN)));
+        cacheInvalidationBus.applyRemoteInvalidations();
+
+        assertThat(userLoginRepository.findOneByLogin(LOGIN)).isEmpty();
+    }
+}
@@ -0,0 +1,103 @@
+package com.mycompany.myapp.repository;
+
+import com.mycompany.myapp.service.UserChangedEvent;
+import com.mycompany.myapp.service.UsersChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link UserNegativeLookupCache} class.
+ */
+public class UserNegativeLookupCacheTest {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private UserNegativeLookupCache userNegativeLookupCache;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        userNegativeLookupCache = new UserNegativeLookupCache(1, 100, meterRegistry);
+    }
+
+    @Test
+    public void testMissingLoginIsNotLookedUpAgain() {
+        assertThat(userNegativeLookupCache.findByLogin("johndoe", missing())).isEmpty();
+        assertThat(userNegativeLookupCache.findByLogin("johndoe", missing())).isEmpty();
+
+        assertThat(lookups).hasValue(1);
+        assertThat(meterRegistry.get("cache.user.negative.lookup.hits").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFoundUserIsLookedUpAgain() {
+        userNegativeLookupCache.findByEmail("john.doe@localhost", found());
+
+        assertThat(userNegativeLookupCache.findByEmail("john.doe@localhost", found())).contains("johndoe");
+        assertThat(lookups).hasValue(2);
+    }
+
+    @Test
+    public void testMissingUsersAreEvictedWhenCreated() {
+        userNegativeLookupCache.findByLogin("johndoe", missing());
+        userNegativeLookupCache.findByEmail("JOHN.DOE@localhost", missing());
+
+        userNegativeLookupCache.onUserChanged(new UserChangedEvent("johndoe", "john.doe@localhost"));
+
+        assertThat(userNegativeLookupCache.findByLogin("johndoe", found())).contains("johndoe");
+        assertThat(userNegativeLookupCache.findByEmail("john.doe@localhost", found())).contains("johndoe");
+    }
+
+    @Test
+    public void testMissingUsersAreEvictedWhenCreatedInBulk() {
+        userNegativeLookupCache.findByLogin("johndoe", missing());
+
+        userNegativeLookupCache.onUsersChanged(new UsersChangedEvent(Collections.singletonList(new UserChangedEvent("johndoe", null))));
+
+        assertThat(userNegativeLookupCache.findByLogin("johndoe", found())).contains("johndoe");
+    }
+
+    @Test
+    public void testLookupRacingWithACreationIsNotCached() {
+        userNegativeLookupCache.findByLogin("johndoe", () -> {
+            userNegativeLookupCache.onUserChanged(new UserChangedEvent("johndoe", null));
+            return Optional.empty();
+        });
+
+        assertThat(userNegativeLookupCache.findByLogin("johndoe", found())).contains("johndoe");
+    }
+
+    @Test
+    public void testMissingLoginExpires() throws InterruptedException {
+        userNegativeLookupCache.findByLogin("johndoe", missing());
+
+        Thread.sleep(1100);
+
+        assertThat(userNegativeLookupCache.findByLogin("johndoe", found())).contains("johndoe");
+    }
+
+    private Supplier<Optional<String>> missing() {
+        return () -> {
+            lookups.incrementAndGet();
+            return Optional.empty();
+        };
+    }
+
+    private Supplier<Optional<String>> found() {
+        return () -> {
+            lookups.incrementAndGet();
+            return Optional.of("johndoe");
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package com.mycompany.myapp.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link AdaptiveBCryptPasswordEncoder} class.
+ */
+public class AdaptiveBCryptPasswordEncoderTest {
+
+    private final AdaptiveBCryptPasswordEncoder adaptiveBCryptPasswordEncoder = new AdaptiveBCryptPasswordEncoder(5);
+
+    @Test
+    public void testHashBelowTheWorkFactorIsUpgraded() {
+        assertThat(adaptiveBCryptPasswordEncoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password"))).isTrue();
+    }
+
+    @Test
+    public void testHashAtOrAboveTheWorkFactorIsKept() {
+        assertThat(adaptiveBCryptPasswordEncoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("password"))).isFalse();
+        assertThat(adaptiveBCryptPasswordEncoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password"))).isFalse();
+    }
+
+    @Test
+    public void testOtherHashesAreKept() {
+        assertThat(adaptiveBCryptPasswordEncoder.upgradeEncoding(null)).isFalse();
+        assertThat(adaptiveBCryptPasswordEncoder.upgradeEncoding("not-a-bcrypt-hash")).isFalse();
+    }
+}
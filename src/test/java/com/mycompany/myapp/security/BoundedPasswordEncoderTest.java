@@ -0,0 +1,95 @@
+package com.mycompany.myapp.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the {@link BoundedPasswordEncoder} class.
+ */
+public class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private PasswordEncoder stuck;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private BoundedPasswordEncoder boundedPasswordEncoder;
+
+    @BeforeEach
+    public void setup() {
+        stuck = new PasswordEncoder() {
+
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+        meterRegistry = new SimpleMeterRegistry();
+        boundedPasswordEncoder = new BoundedPasswordEncoder(stuck, 1, 1, 100, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        boundedPasswordEncoder.destroy();
+    }
+
+    @Test
+    public void testStuckHashIsCancelledAfterTheTimeout() {
+        assertThatThrownBy(() -> boundedPasswordEncoder.matches("password", "password"))
+            .isInstanceOf(PasswordHashingRejectedException.class);
+        assertThat(meterRegistry.get("security.password.hashing.timeouts").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testHashIsAnsweredWithinTheTimeout() {
+        release.countDown();
+
+        assertThat(boundedPasswordEncoder.matches("password", "password")).isTrue();
+    }
+
+    @Test
+    public void testHashIsRejectedWhenThePoolIsSaturated() throws InterruptedException {
+        boundedPasswordEncoder.destroy();
+        meterRegistry = new SimpleMeterRegistry();
+        boundedPasswordEncoder = new BoundedPasswordEncoder(stuck, 1, 1, 10000, meterRegistry);
+        Thread running = new Thread(() -> boundedPasswordEncoder.encode("running"));
+        running.start();
+        started.await();
+        Thread queued = new Thread(() -> boundedPasswordEncoder.encode("queued"));
+        queued.start();
+        while (meterRegistry.get("security.password.hashing.queue.size").gauge().value() < 1) {
+            Thread.sleep(10);
+        }
+
+        assertThatThrownBy(() -> boundedPasswordEncoder.encode("rejected"))
+            .isInstanceOf(PasswordHashingRejectedException.class);
+        assertThat(meterRegistry.get("security.password.hashing.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        running.join();
+        queued.join();
+    }
+}
@@ -0,0 +1,68 @@
+package com.mycompany.myapp.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link BulkPasswordHasher} class.
+ */
+public class BulkPasswordHasherTest {
+
+    private BoundedPasswordEncoder boundedPasswordEncoder;
+
+    private BulkPasswordHasher bulkPasswordHasher;
+
+    @BeforeEach
+    public void setup() {
+        PasswordEncoder reversing = new PasswordEncoder() {
+
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return new StringBuilder(rawPassword).reverse().toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        boundedPasswordEncoder = new BoundedPasswordEncoder(reversing, 1, 1, 5000, meterRegistry);
+        bulkPasswordHasher = new BulkPasswordHasher(boundedPasswordEncoder, 4, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bulkPasswordHasher.destroy();
+        boundedPasswordEncoder.destroy();
+    }
+
+    @Test
+    public void testHashesAreInTheOrderOfThePasswords() {
+        List<String> passwords = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            passwords.add("password-" + i);
+        }
+
+        List<String> hashes = bulkPasswordHasher.encodeAll(passwords);
+
+        assertThat(hashes).hasSize(passwords.size());
+        for (int i = 0; i < passwords.size(); i++) {
+            assertThat(hashes.get(i)).isEqualTo(new StringBuilder(passwords.get(i)).reverse().toString());
+        }
+    }
+
+    @Test
+    public void testNullPasswordsAreKept() {
+        assertThat(bulkPasswordHasher.encodeAll(Arrays.asList("ab", null, "cd"))).containsExactly("ba", null, "dc");
+    }
+}
@@ -0,0 +1,113 @@
+package com.mycompany.myapp.security;
+
+import com.mycompany.myapp.JhipsterSampleApplicationApp;
+import com.mycompany.myapp.service.UserChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link CachedUserDetailsLoader}.
+ */
+@SpringBootTest(classes = JhipsterSampleApplicationApp.class)
+public class CachedUserDetailsLoaderIT {
+
+    private static final long ID = 990401;
+
+    private static final String LOGIN = "details-user";
+
+    private static final String EMAIL = "details-user@localhost";
+
+    private static final String PASSWORD_HASH = RandomStringUtils.randomAlphanumeric(60);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Runnable duringQuery = () -> { };
+
+    private CachedUserDetailsLoader cachedUserDetailsLoader;
+
+    @BeforeEach
+    public void setup() {
+        jdbcTemplate.update("insert into jhi_user (id, login, email, password_hash, activated, created_by) values (?, ?, ?, ?, true, 'system')",
+            ID, LOGIN, EMAIL, PASSWORD_HASH);
+        JdbcTemplate racingJdbcTemplate = new JdbcTemplate(dataSource) {
+
+            @Override
+            public void query(String sql, RowCallbackHandler rch, Object... args) throws DataAccessException {
+                super.query(sql, rch, args);
+                duringQuery.run();
+            }
+        };
+        cachedUserDetailsLoader = new CachedUserDetailsLoader(racingJdbcTemplate, 1, 100, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from jhi_user where id = ?", ID);
+    }
+
+    @Test
+    public void testUserIsCachedUntilTheUserChanges() {
+        assertThat(cachedUserDetailsLoader.loadByLogin(LOGIN)).map(UserDetails::isEnabled).contains(true);
+        deactivate();
+        assertThat(cachedUserDetailsLoader.loadByLogin(LOGIN)).map(UserDetails::isEnabled).contains(true);
+
+        cachedUserDetailsLoader.onUserChanged(new UserChangedEvent(LOGIN, EMAIL));
+
+        assertThat(cachedUserDetailsLoader.loadByLogin(LOGIN)).map(UserDetails::isEnabled).contains(false);
+    }
+
+    @Test
+    public void testUserLoadedByEmailIsEvictedByEmail() {
+        assertThat(cachedUserDetailsLoader.loadByEmail(EMAIL.toUpperCase())).map(UserDetails::isEnabled).contains(true);
+        deactivate();
+        assertThat(cachedUserDetailsLoader.loadByEmail(EMAIL)).map(UserDetails::isEnabled).contains(true);
+
+        cachedUserDetailsLoader.onUserChanged(new UserChangedEvent(null, EMAIL));
+
+        assertThat(cachedUserDetailsLoader.loadByEmail(EMAIL)).map(UserDetails::isEnabled).contains(false);
+    }
+
+    @Test
+    public void testLoadRacingWithAChangeIsNotCached() {
+        duringQuery = () -> {
+            deactivate();
+            cachedUserDetailsLoader.onUserChanged(new UserChangedEvent(LOGIN, EMAIL));
+        };
+        assertThat(cachedUserDetailsLoader.loadByLogin(LOGIN)).map(UserDetails::isEnabled).contains(true);
+        duringQuery = () -> { };
+
+        assertThat(cachedUserDetailsLoader.loadByLogin(LOGIN)).map(UserDetails::isEnabled).contains(false);
+    }
+
+    @Test
+    public void testUserExpires() throws InterruptedException {
+        assertThat(cachedUserDetailsLoader.loadByLogin(LOGIN)).map(UserDetails::isEnabled).contains(true);
+        deactivate();
+
+        Thread.sleep(1100);
+
+        assertThat(cachedUserDetailsLoader.loadByLogin(LOGIN)).map(UserDetails::isEnabled).contains(false);
+    }
+
+    private void deactivate() {
+        jdbcTemplate.update("update jhi_user set activated = false where id = ?", ID);
+    }
+}
@@ -0,0 +1,78 @@
+package com.mycompany.myapp.security;
+
+import com.mycompany.myapp.JhipsterSampleApplicationApp;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link PasswordRehashService}, with a work factor above the lowest BCrypt one.
+ */
+@SpringBootTest(classes = JhipsterSampleApplicationApp.class, properties = {
+    "application.security.password-hashing.min-strength=5",
+    "application.security.password-hashing.max-strength=5"
+})
+public class PasswordRehashServiceIT {
+
+    private static final long ID = 990501;
+
+    private static final String LOGIN = "rehash-user";
+
+    @Autowired
+    private AuthenticationManagerBuilder authenticationManagerBuilder;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from jhi_user where id = ?", ID);
+    }
+
+    @Test
+    public void testHashBelowTheWorkFactorIsUpgradedOnLogin() {
+        insertUser(new BCryptPasswordEncoder(4).encode("password"));
+
+        authenticate();
+
+        String passwordHash = passwordHash();
+        assertThat(passwordHash).startsWith("$2a$05$");
+        assertThat(passwordEncoder.matches("password", passwordHash)).isTrue();
+    }
+
+    @Test
+    public void testHashAtTheWorkFactorIsKept() {
+        String passwordHash = passwordEncoder.encode("password");
+        insertUser(passwordHash);
+
+        authenticate();
+
+        assertThat(passwordHash()).isEqualTo(passwordHash);
+    }
+
+    private void insertUser(String passwordHash) {
+        jdbcTemplate.update("insert into jhi_user (id, login, password_hash, activated, created_by) values (?, ?, ?, true, 'system')",
+            ID, LOGIN, passwordHash);
+    }
+
+    private void authenticate() {
+        assertThat(authenticationManagerBuilder.getObject()
+            .authenticate(new UsernamePasswordAuthenticationToken(LOGIN, "password")).isAuthenticated()).isTrue();
+    }
+
+    private String passwordHash() {
+        return jdbcTemplate.queryForObject("select password_hash from jhi_user where id = ?", String.class, ID);
+    }
+}
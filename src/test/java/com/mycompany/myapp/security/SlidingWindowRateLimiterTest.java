@@ -0,0 +1,44 @@
+package com.mycompany.myapp.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link SlidingWindowRateLimiter} class.
+ */
+public class SlidingWindowRateLimiterTest {
+
+    private static final long WINDOW = 60000;
+
+    @Test
+    public void testRejectsAttemptsOverTheLimit() {
+        SlidingWindowRateLimiter rateLimiter = new SlidingWindowRateLimiter(1024, WINDOW, 3);
+
+        assertThat(rateLimiter.tryAcquire("user", 0)).isTrue();
+        assertThat(rateLimiter.tryAcquire("user", 1)).isTrue();
+        assertThat(rateLimiter.tryAcquire("user", 2)).isTrue();
+        assertThat(rateLimiter.tryAcquire("user", 3)).isFalse();
+        assertThat(rateLimiter.tryAcquire("other-user", 4)).isTrue();
+    }
+
+    @Test
+    public void testPreviousWindowIsWeighted() {
+        SlidingWindowRateLimiter rateLimiter = new SlidingWindowRateLimiter(1024, WINDOW, 2);
+
+        assertThat(rateLimiter.tryAcquire("user", WINDOW - 2)).isTrue();
+        assertThat(rateLimiter.tryAcquire("user", WINDOW - 1)).isTrue();
+        assertThat(rateLimiter.tryAcquire("user", WINDOW + 1)).isTrue();
+        assertThat(rateLimiter.tryAcquire("user", WINDOW + 2)).isFalse();
+        assertThat(rateLimiter.tryAcquire("user", WINDOW + WINDOW * 3 / 4)).isTrue();
+    }
+
+    @Test
+    public void testAttemptsAreAllowedAgainAfterTwoWindows() {
+        SlidingWindowRateLimiter rateLimiter = new SlidingWindowRateLimiter(1024, WINDOW, 1);
+
+        assertThat(rateLimiter.tryAcquire("user", 0)).isTrue();
+        assertThat(rateLimiter.tryAcquire("user", 1)).isFalse();
+        assertThat(rateLimiter.tryAcquire("user", 2 * WINDOW)).isTrue();
+    }
+}
@@ -0,0 +1,74 @@
+package com.mycompany.myapp.security.jwt;
+
+import com.mycompany.myapp.security.AuthoritiesConstants;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the {@link AuthorityCodec} class.
+ */
+public class AuthorityCodecTest {
+
+    private static final List<String> KNOWN_AUTHORITIES = Arrays.asList(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER);
+
+    @Test
+    public void testEncodeAsBitmaskWhenCompact() {
+        AuthorityCodec authorityCodec = new AuthorityCodec(KNOWN_AUTHORITIES, true);
+
+        Object claim = authorityCodec.encode(Arrays.asList(
+            new SimpleGrantedAuthority(AuthoritiesConstants.USER),
+            new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN)));
+
+        assertThat(claim).isEqualTo(3L);
+        assertThat(authorityCodec.decode(claim)).extracting(GrantedAuthority::getAuthority)
+            .containsExactly(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER);
+    }
+
+    @Test
+    public void testEncodeAsStringWhenNotCompact() {
+        AuthorityCodec authorityCodec = new AuthorityCodec(KNOWN_AUTHORITIES, false);
+
+        Object claim = authorityCodec.encode(Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER)));
+
+        assertThat(claim).isEqualTo(AuthoritiesConstants.USER);
+    }
+
+    @Test
+    public void testEncodeUnknownAuthorityAsString() {
+        AuthorityCodec authorityCodec = new AuthorityCodec(KNOWN_AUTHORITIES, true);
+
+        Object claim = authorityCodec.encode(Arrays.asList(
+            new SimpleGrantedAuthority(AuthoritiesConstants.USER),
+            new SimpleGrantedAuthority("ROLE_OTHER")));
+
+        assertThat(claim).isEqualTo(AuthoritiesConstants.USER + ",ROLE_OTHER");
+    }
+
+    @Test
+    public void testDecodeLegacyClaim() {
+        AuthorityCodec authorityCodec = new AuthorityCodec(KNOWN_AUTHORITIES, true);
+
+        List<GrantedAuthority> authorities = authorityCodec.decode((Object) (AuthoritiesConstants.ADMIN + "," + AuthoritiesConstants.USER));
+
+        assertThat(authorities).extracting(GrantedAuthority::getAuthority)
+            .containsExactly(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER);
+        assertThat(authorityCodec.decode(3L).get(0)).isSameAs(authorities.get(0));
+    }
+
+    @Test
+    public void testDecodedAuthoritiesAreShared() {
+        AuthorityCodec authorityCodec = new AuthorityCodec(KNOWN_AUTHORITIES, true);
+
+        assertThat(authorityCodec.decode(2L)).isSameAs(authorityCodec.decode(2L));
+        assertThat(authorityCodec.decode(AuthoritiesConstants.USER)).isSameAs(authorityCodec.decode(AuthoritiesConstants.USER));
+        assertThat(authorityCodec.decode("")).isEmpty();
+    }
+}
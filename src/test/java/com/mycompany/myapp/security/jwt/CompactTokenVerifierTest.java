@@ -0,0 +1,150 @@
+package com.mycompany.myapp.security.jwt;
+
+import com.mycompany.myapp.security.AuthoritiesConstants;
+
+import java.security.Key;
+import java.util.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.github.jhipster.config.JHipsterProperties;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that {@link CompactTokenVerifier} takes the same accept/reject decisions as the jjwt parser
+ * used by {@link TokenProvider#validateToken}.
+ */
+public class CompactTokenVerifierTest {
+
+    private static final long ONE_MINUTE = 60000;
+
+    private Key key;
+    private TokenProvider tokenProvider;
+    private CompactTokenVerifier compactTokenVerifier;
+    private CompactTokenVerifier.Claims claims;
+
+    @BeforeEach
+    public void setup() {
+        tokenProvider = new TokenProvider(new JHipsterProperties());
+        key = Keys.hmacShaKeyFor(Decoders.BASE64
+            .decode("fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8"));
+
+        ReflectionTestUtils.setField(tokenProvider, "key", key);
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", ONE_MINUTE);
+        compactTokenVerifier = new CompactTokenVerifier(key);
+        claims = new CompactTokenVerifier.Claims();
+    }
+
+    @Test
+    public void testAcceptsTokenIssuedByTokenProvider() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(compactTokenVerifier.verify(token, claims)).isEqualTo(CompactTokenVerifier.VALID);
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+        assertThat(claims.getSubject()).isEqualTo("anonymous");
+        assertThat(claims.getAuthorities()).isEqualTo(AuthoritiesConstants.ANONYMOUS + "," + AuthoritiesConstants.USER);
+        assertThat(claims.getExpiration())
+            .isEqualTo(Jwts.parser().setSigningKey(key).parseClaimsJws(token).getBody().getExpiration().getTime() / 1000);
+    }
+
+    @Test
+    public void testRejectsInvalidSignature() {
+        String token = createTokenWithDifferentSignature();
+
+        assertThat(compactTokenVerifier.verify(token, claims)).isEqualTo(CompactTokenVerifier.INVALID_SIGNATURE);
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+    }
+
+    @Test
+    public void testRejectsTamperedPayload() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        String[] parts = token.split("\\.");
+        String otherPayload = tokenProvider.createToken(
+            new UsernamePasswordAuthenticationToken("admin", "admin",
+                Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN))), false).split("\\.")[1];
+        String tamperedToken = parts[0] + "." + otherPayload + "." + parts[2];
+
+        assertThat(compactTokenVerifier.verify(tamperedToken, claims)).isEqualTo(CompactTokenVerifier.INVALID_SIGNATURE);
+        assertThat(tokenProvider.validateToken(tamperedToken)).isFalse();
+    }
+
+    @Test
+    public void testRejectsMalformedToken() {
+        String token = tokenProvider.createToken(createAuthentication(), false).substring(1);
+
+        assertThat(compactTokenVerifier.verify(token, claims)).isNotEqualTo(CompactTokenVerifier.VALID);
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+    }
+
+    @Test
+    public void testRejectsExpiredToken() {
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", -ONE_MINUTE);
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(compactTokenVerifier.verify(token, claims)).isEqualTo(CompactTokenVerifier.EXPIRED);
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+    }
+
+    @Test
+    public void testDelegatesUnsupportedTokenToJjwt() {
+        String token = Jwts.builder()
+            .setPayload("payload")
+            .signWith(key, SignatureAlgorithm.HS512)
+            .compact();
+
+        assertThat(compactTokenVerifier.verify(token, claims)).isEqualTo(CompactTokenVerifier.UNSUPPORTED);
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+    }
+
+    @Test
+    public void testDelegatesTokenWithExtraClaimsToJjwt() {
+        String token = Jwts.builder()
+            .setSubject("anonymous")
+            .claim("auth", AuthoritiesConstants.USER)
+            .setIssuer("another-issuer")
+            .signWith(key, SignatureAlgorithm.HS512)
+            .setExpiration(new Date(new Date().getTime() + ONE_MINUTE))
+            .compact();
+
+        assertThat(compactTokenVerifier.verify(token, claims)).isEqualTo(CompactTokenVerifier.UNSUPPORTED);
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+    }
+
+    @Test
+    public void testRejectsInvalidToken() {
+        assertThat(compactTokenVerifier.verify("", claims)).isEqualTo(CompactTokenVerifier.MALFORMED);
+        assertThat(tokenProvider.validateToken("")).isFalse();
+        assertThat(compactTokenVerifier.verify("wrong_jwt", claims)).isEqualTo(CompactTokenVerifier.MALFORMED);
+        assertThat(tokenProvider.validateToken("wrong_jwt")).isFalse();
+    }
+
+    private Authentication createAuthentication() {
+        Collection<GrantedAuthority> authorities = new ArrayList<>();
+        authorities.add(new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS));
+        authorities.add(new SimpleGrantedAuthority(AuthoritiesConstants.USER));
+        return new UsernamePasswordAuthenticationToken("anonymous", "anonymous", authorities);
+    }
+
+    private String createTokenWithDifferentSignature() {
+        Key otherKey = Keys.hmacShaKeyFor(Decoders.BASE64
+            .decode("Xfd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8"));
+
+        return Jwts.builder()
+            .setSubject("anonymous")
+            .claim("auth", AuthoritiesConstants.USER)
+            .signWith(otherKey, SignatureAlgorithm.HS512)
+            .setExpiration(new Date(new Date().getTime() + ONE_MINUTE))
+            .compact();
+    }
+}
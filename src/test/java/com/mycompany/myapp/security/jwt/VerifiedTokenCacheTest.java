@@ -0,0 +1,93 @@
+package com.mycompany.myapp.security.jwt;
+
+import com.mycompany.myapp.security.AuthoritiesConstants;
+
+import io.github.jhipster.config.JHipsterProperties;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VerifiedTokenCacheTest {
+
+    private static final long ONE_MINUTE = 60000;
+
+    private TokenProvider tokenProvider;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TokenEpochRegistry tokenEpochRegistry;
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @BeforeEach
+    public void setup() {
+        tokenProvider = new TokenProvider(new JHipsterProperties());
+        ReflectionTestUtils.setField(tokenProvider, "key",
+            Keys.hmacShaKeyFor(Decoders.BASE64
+                .decode("fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8")));
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", ONE_MINUTE);
+        meterRegistry = new SimpleMeterRegistry();
+        tokenEpochRegistry = new TokenEpochRegistry(null);
+        verifiedTokenCache = new VerifiedTokenCache(2, tokenEpochRegistry, meterRegistry);
+    }
+
+    @Test
+    public void testCachedAuthenticationIsReturned() {
+        String jwt = tokenProvider.createToken(createAuthentication("test-user"), false);
+        Authentication authentication = tokenProvider.getAuthentication(jwt);
+
+        assertThat(verifiedTokenCache.get(jwt)).isNull();
+        verifiedTokenCache.put(jwt, authentication);
+
+        assertThat(verifiedTokenCache.get(jwt)).isSameAs(authentication);
+        assertThat(meterRegistry.get("security.jwt.token.cache").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("security.jwt.token.cache").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testExpiredTokenIsNotCached() {
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", -ONE_MINUTE);
+        String jwt = tokenProvider.createToken(createAuthentication("test-user"), false);
+
+        verifiedTokenCache.put(jwt, createAuthentication("test-user"));
+
+        assertThat(verifiedTokenCache.get(jwt)).isNull();
+    }
+
+    @Test
+    public void testCacheStaysBounded() {
+        for (int i = 0; i < 5; i++) {
+            String jwt = tokenProvider.createToken(createAuthentication("test-user-" + i), false);
+            verifiedTokenCache.put(jwt, createAuthentication("test-user-" + i));
+        }
+
+        assertThat(meterRegistry.get("security.jwt.token.cache.size").gauge().value()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void testRevokedTokenIsNotReturned() {
+        String jwt = tokenProvider.createToken(createAuthentication("test-user"), false);
+        verifiedTokenCache.put(jwt, tokenProvider.getAuthentication(jwt));
+
+        tokenEpochRegistry.onTokenEpochChanged(new TokenEpochChangedEvent("test-user", 1));
+
+        assertThat(verifiedTokenCache.get(jwt)).isNull();
+        assertThat(meterRegistry.get("security.jwt.token.cache.revoked").counter().count()).isEqualTo(1);
+    }
+
+    private Authentication createAuthentication(String login) {
+        return new UsernamePasswordAuthenticationToken(login, "test-password",
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER)));
+    }
+}
@@ -0,0 +1,106 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.JhipsterSampleApplicationApp;
+import com.mycompany.myapp.security.AuthoritiesConstants;
+import com.mycompany.myapp.service.BulkUserOperationService.ItemStatus;
+import com.mycompany.myapp.service.BulkUserOperationService.Operation;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Integration tests for {@link BulkUserOperationService}.
+ */
+@SpringBootTest(classes = JhipsterSampleApplicationApp.class)
+public class BulkUserOperationServiceIT {
+
+    private static final long FIRST_ID = 970001;
+
+    private static final String PASSWORD_HASH = RandomStringUtils.randomAlphanumeric(60);
+
+    @Autowired
+    private BulkUserOperationService bulkUserOperationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setup() {
+        insertUser(FIRST_ID, "bulkop-active", true);
+        insertUser(FIRST_ID + 1, "bulkop-inactive", false);
+        jdbcTemplate.update("insert into jhi_user_authority (user_id, authority_name) values (?, ?)", FIRST_ID, AuthoritiesConstants.USER);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from jhi_user_authority where user_id in (select id from jhi_user where login like 'bulkop-%')");
+        jdbcTemplate.update("delete from jhi_user where login like 'bulkop-%'");
+        jdbcTemplate.update("delete from jhi_token_epoch where login like 'bulkop-%'");
+    }
+
+    @Test
+    public void testDeactivateReportsEachUser() {
+        BulkUserOperationService.Result result = bulkUserOperationService.apply(Operation.DEACTIVATE,
+            Arrays.asList("bulkop-active", "BULKOP-INACTIVE", "bulkop-unknown", "anonymoususer"), null);
+
+        assertThat(result.getItems()).extracting(BulkUserOperationService.Item::getLogin)
+            .containsExactly("bulkop-active", "bulkop-inactive", "bulkop-unknown", "anonymoususer");
+        assertThat(result.getItems()).extracting(BulkUserOperationService.Item::getStatus)
+            .containsExactly(ItemStatus.CHANGED, ItemStatus.UNCHANGED, ItemStatus.NOT_FOUND, ItemStatus.SKIPPED);
+        assertThat(jdbcTemplate.queryForObject("select activated from jhi_user where id = ?", Boolean.class, FIRST_ID)).isFalse();
+        assertThat(jdbcTemplate.queryForObject("select epoch from jhi_token_epoch where login = ?", Integer.class, "bulkop-active"))
+            .isEqualTo(1);
+    }
+
+    @Test
+    public void testAddAuthorityOnlyToUsersWithoutIt() {
+        BulkUserOperationService.Result result = bulkUserOperationService.apply(Operation.ADD_AUTHORITY,
+            Arrays.asList("bulkop-active", "bulkop-inactive"), AuthoritiesConstants.USER);
+
+        assertThat(result.getCounts()).containsEntry(ItemStatus.CHANGED, 1L).containsEntry(ItemStatus.UNCHANGED, 1L);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from jhi_user_authority where user_id in (?, ?)", Long.class,
+            FIRST_ID, FIRST_ID + 1)).isEqualTo(2);
+    }
+
+    @Test
+    public void testRemoveAuthorityRevokesTheTokens() {
+        BulkUserOperationService.Result result = bulkUserOperationService.apply(Operation.REMOVE_AUTHORITY,
+            Arrays.asList("bulkop-active", "bulkop-inactive"), AuthoritiesConstants.USER);
+
+        assertThat(result.getCounts()).containsEntry(ItemStatus.CHANGED, 1L).containsEntry(ItemStatus.UNCHANGED, 1L);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from jhi_user_authority where user_id = ?", Long.class, FIRST_ID))
+            .isEqualTo(0);
+        assertThat(jdbcTemplate.queryForObject("select epoch from jhi_token_epoch where login = ?", Integer.class, "bulkop-active"))
+            .isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from jhi_token_epoch where login = ?", Long.class, "bulkop-inactive"))
+            .isEqualTo(0);
+    }
+
+    @Test
+    public void testDeleteByFilter() {
+        bulkUserOperationService.apply(Operation.DELETE, bulkUserOperationService.findLogins(false, null, null), null);
+
+        assertThat(jdbcTemplate.queryForList("select login from jhi_user where login like 'bulkop-%'", String.class))
+            .containsExactly("bulkop-active");
+    }
+
+    @Test
+    public void testUnknownAuthorityIsRejected() {
+        assertThatThrownBy(() -> bulkUserOperationService.apply(Operation.ADD_AUTHORITY, Arrays.asList("bulkop-active"), "ROLE_UNKNOWN"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void insertUser(long id, String login, boolean activated) {
+        jdbcTemplate.update("insert into jhi_user (id, login, password_hash, activated, created_by) values (?, ?, ?, ?, 'system')",
+            id, login, PASSWORD_HASH, activated);
+    }
+}
@@ -0,0 +1,83 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.JhipsterSampleApplicationApp;
+import com.mycompany.myapp.repository.CacheInvalidationTransport.CacheInvalidation;
+import com.mycompany.myapp.repository.JdbcCacheInvalidationTransport;
+import com.mycompany.myapp.repository.UserLoginRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Integration tests for {@link CacheInvalidationBus}, with the changes published from real transactions.
+ */
+@SpringBootTest(classes = JhipsterSampleApplicationApp.class)
+public class CacheInvalidationBusIT {
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    private JdbcCacheInvalidationTransport otherNode;
+
+    @BeforeEach
+    public void setup() {
+        jdbcTemplate.update("delete from jhi_cache_invalidation");
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        otherNode = new JdbcCacheInvalidationTransport(jdbcTemplate, 500, 3600, 0);
+        otherNode.poll();
+    }
+
+    @Test
+    public void testInvalidationsAreCommittedWithTheChange() {
+        transactionTemplate.execute(status -> {
+            applicationEventPublisher.publishEvent(new UserChangedEvent("bus-user", "bus-user@localhost"));
+            return null;
+        });
+
+        assertThat(otherNode.poll())
+            .extracting(CacheInvalidation::getCacheName, CacheInvalidation::getKey)
+            .containsExactly(
+                tuple(UserLoginRepository.USERS_BY_LOGIN_CACHE, "bus-user"),
+                tuple(UserLoginRepository.USERS_BY_EMAIL_CACHE, "bus-user@localhost"));
+    }
+
+    @Test
+    public void testInvalidationsOfABatchAreCommittedWithTheChange() {
+        transactionTemplate.execute(status -> {
+            applicationEventPublisher.publishEvent(new UsersChangedEvent(Arrays.asList(
+                new UserChangedEvent("bus-user-1", null), new UserChangedEvent("bus-user-2", null))));
+            return null;
+        });
+
+        assertThat(otherNode.poll()).extracting(CacheInvalidation::getKey).containsExactly("bus-user-1", "bus-user-2");
+    }
+
+    @Test
+    public void testInvalidationsAreNotPublishedWhenTheChangeIsRolledBack() {
+        transactionTemplate.execute(status -> {
+            applicationEventPublisher.publishEvent(new UserChangedEvent("bus-user", null));
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(otherNode.poll()).isEmpty();
+    }
+}
@@ -0,0 +1,79 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.JhipsterSampleApplicationApp;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link NotActivatedUserCleanupService}.
+ */
+@SpringBootTest(classes = JhipsterSampleApplicationApp.class)
+public class NotActivatedUserCleanupServiceIT {
+
+    private static final long FIRST_ID = 960001;
+
+    private static final String PASSWORD_HASH = RandomStringUtils.randomAlphanumeric(60);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserCacheEvictionService userCacheEvictionService;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private NotActivatedUserCleanupService cleanupService;
+
+    @BeforeEach
+    public void setup() {
+        cleanupService = new NotActivatedUserCleanupService(jdbcTemplate, transactionManager, userCacheEvictionService,
+            applicationEventPublisher, new SimpleMeterRegistry(), 2, 3);
+        Instant old = Instant.now().minus(4, ChronoUnit.DAYS);
+        insertUser(FIRST_ID, "cleanup-old-1", false, "key1", old);
+        insertUser(FIRST_ID + 1, "cleanup-old-2", false, "key2", old);
+        insertUser(FIRST_ID + 2, "cleanup-old-3", false, "key3", old);
+        insertUser(FIRST_ID + 3, "cleanup-recent", false, "key4", Instant.now());
+        insertUser(FIRST_ID + 4, "cleanup-activated", true, null, old);
+        jdbcTemplate.update("insert into jhi_user_authority (user_id, authority_name) values (?, 'ROLE_USER')", FIRST_ID);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from jhi_user_authority where user_id in (select id from jhi_user where login like 'cleanup-%')");
+        jdbcTemplate.update("delete from jhi_user where login like 'cleanup-%'");
+    }
+
+    @Test
+    public void testRemovesOldNotActivatedUsersByChunks() {
+        long deleted = cleanupService.removeNotActivatedUsers(Instant.now().minus(3, ChronoUnit.DAYS));
+
+        assertThat(deleted).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForList("select login from jhi_user where login like 'cleanup-%' order by login", String.class))
+            .containsExactly("cleanup-activated", "cleanup-recent");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from jhi_user_authority where user_id = ?", Long.class, FIRST_ID))
+            .isEqualTo(0);
+    }
+
+    private void insertUser(long id, String login, boolean activated, String activationKey, Instant createdDate) {
+        jdbcTemplate.update("insert into jhi_user (id, login, password_hash, activated, activation_key, created_by, created_date) " +
+            "values (?, ?, ?, ?, ?, 'system', ?)", id, login, PASSWORD_HASH, activated, activationKey, Timestamp.from(createdDate));
+    }
+}
@@ -0,0 +1,83 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.JhipsterSampleApplicationApp;
+import com.mycompany.myapp.security.jwt.TokenEpochRegistry;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link TokenEpochService}.
+ */
+@SpringBootTest(classes = JhipsterSampleApplicationApp.class)
+public class TokenEpochServiceIT {
+
+    private static final long ID = 990101;
+
+    private static final String LOGIN = "epoch-user";
+
+    @Autowired
+    private TokenEpochService tokenEpochService;
+
+    @Autowired
+    private TokenEpochRegistry tokenEpochRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setup() {
+        insertUser();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from jhi_user where id = ?", ID);
+        jdbcTemplate.update("delete from jhi_token_epoch where login = ?", LOGIN);
+    }
+
+    private void insertUser() {
+        jdbcTemplate.update("insert into jhi_user (id, login, password_hash, activated, created_by) values (?, ?, ?, true, 'system')",
+            ID, LOGIN, RandomStringUtils.randomAlphanumeric(60));
+    }
+
+    @Test
+    public void testRevocationsAreCounted() {
+        int epoch = tokenEpochRegistry.currentEpoch(LOGIN);
+        tokenEpochService.revokeTokens(LOGIN);
+        tokenEpochService.revokeTokens(LOGIN);
+
+        int revoked = jdbcTemplate.queryForObject("select epoch from jhi_token_epoch where login = ?", Integer.class, LOGIN);
+        assertThat(revoked).isGreaterThanOrEqualTo(2);
+        assertThat(tokenEpochRegistry.currentEpoch(LOGIN)).isEqualTo(revoked);
+        assertThat(tokenEpochRegistry.isCurrent(LOGIN, epoch)).isFalse();
+    }
+
+    @Test
+    public void testTokensOfADeletedUserStayRevokedAfterARestart() {
+        tokenEpochService.revokeTokens(LOGIN);
+        int epoch = jdbcTemplate.queryForObject("select epoch from jhi_token_epoch where login = ?", Integer.class, LOGIN);
+        jdbcTemplate.update("delete from jhi_user where id = ?", ID);
+
+        TokenEpochRegistry restarted = new TokenEpochRegistry(jdbcTemplate);
+        restarted.afterPropertiesSet();
+
+        assertThat(restarted.isCurrent(LOGIN, epoch - 1)).isFalse();
+        insertUser();
+        assertThat(restarted.currentEpoch(LOGIN)).isEqualTo(epoch);
+    }
+
+    @Test
+    public void testUnknownUserIsNotRevoked() {
+        tokenEpochService.revokeTokens("epoch-unknown");
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from jhi_token_epoch where login = 'epoch-unknown'", Long.class))
+            .isZero();
+    }
+}
@@ -0,0 +1,53 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.JhipsterSampleApplicationApp;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link TotalCountService}.
+ */
+@SpringBootTest(classes = JhipsterSampleApplicationApp.class)
+@Transactional
+public class TotalCountServiceIT {
+
+    private static final long ID = 990001;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TotalCountService totalCountService;
+
+    @BeforeEach
+    public void setup() {
+        totalCountService = new TotalCountService(jdbcTemplate, 3600, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void testUserCountIsCachedUntilAUserChanges() {
+        long initialCount = totalCountService.countUsers(false);
+        jdbcTemplate.update("insert into jhi_user (id, login, password_hash, activated, created_by) values (?, ?, ?, ?, ?)",
+            ID, "johndoe", RandomStringUtils.randomAlphanumeric(60), true, "system");
+
+        assertThat(totalCountService.countUsers(false)).isEqualTo(initialCount);
+
+        totalCountService.onUserChanged(new UserChangedEvent("johndoe", null));
+
+        assertThat(totalCountService.countUsers(false)).isEqualTo(initialCount + 1);
+    }
+
+    @Test
+    public void testApproximateCountFallsBackToTheExactCount() {
+        long exactCount = jdbcTemplate.queryForObject("select count(*) from jhi_persistent_audit_event", Long.class);
+
+        assertThat(totalCountService.countAuditEvents(true)).isEqualTo(exactCount);
+    }
+}
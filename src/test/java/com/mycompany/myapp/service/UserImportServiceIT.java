@@ -0,0 +1,89 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.JhipsterSampleApplicationApp;
+import com.mycompany.myapp.repository.UserNegativeLookupCache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link UserImportService}.
+ */
+@SpringBootTest(classes = JhipsterSampleApplicationApp.class)
+public class UserImportServiceIT {
+
+    private static final String USERS = "[" +
+        "{\"login\":\"import-john\",\"email\":\"import-john@localhost\",\"activated\":true,\"langKey\":\"en\"," +
+        "\"password\":\"password\",\"authorities\":[\"ROLE_USER\",\"ROLE_UNKNOWN\"],\"unknownField\":1}," +
+        "{\"login\":\"admin\",\"email\":\"import-admin@localhost\"}," +
+        "{\"login\":\"import-jane\",\"email\":\"ADMIN@localhost\"}," +
+        "{\"email\":\"import-nologin@localhost\"}" +
+        "]";
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserNegativeLookupCache userNegativeLookupCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from jhi_user_authority where user_id in (select id from jhi_user where login like 'import-%')");
+        jdbcTemplate.update("delete from jhi_user where login like 'import-%'");
+    }
+
+    @Test
+    public void testImportSkipsExistingUsers() throws Exception {
+        UserImportService.ImportStatus status = new UserImportService.ImportStatus("test");
+
+        userImportService.importUsers(users(), status);
+
+        assertThat(status.getImported()).isEqualTo(1);
+        assertThat(status.getSkipped()).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForList(
+            "select ua.authority_name from jhi_user_authority ua join jhi_user u on u.id = ua.user_id where u.login = ?",
+            String.class, "import-john")).containsExactly("ROLE_USER");
+        assertThat(jdbcTemplate.queryForObject("select password_hash from jhi_user where login = ?", String.class, "import-john"))
+            .isNotEqualTo("password");
+    }
+
+    @Test
+    public void testImportIsIdempotent() throws Exception {
+        userImportService.importUsers(users(), new UserImportService.ImportStatus("test"));
+        UserImportService.ImportStatus status = new UserImportService.ImportStatus("test");
+
+        userImportService.importUsers(users(), status);
+
+        assertThat(status.getImported()).isEqualTo(0);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from jhi_user where login = ?", Long.class, "import-john"))
+            .isEqualTo(1);
+    }
+
+    @Test
+    public void testImportInvalidatesTheNegativeLookups() throws Exception {
+        assertThat(userNegativeLookupCache.findByLogin("import-john", Optional::empty)).isEmpty();
+
+        userImportService.importUsers(users(), new UserImportService.ImportStatus("test"));
+
+        assertThat(userNegativeLookupCache.findByLogin("import-john", () -> Optional.of("import-john"))).contains("import-john");
+        assertThat(userNegativeLookupCache.findByEmail("import-john@localhost", () -> Optional.of("import-john")))
+            .contains("import-john");
+    }
+
+    private static InputStream users() {
+        return new ByteArrayInputStream(USERS.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,72 @@
+package com.mycompany.myapp.service;
+
+import com.mycompany.myapp.JhipsterSampleApplicationApp;
+import com.mycompany.myapp.security.AuthoritiesConstants;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for {@link UserVersionService}.
+ */
+@SpringBootTest(classes = JhipsterSampleApplicationApp.class)
+public class UserVersionServiceIT {
+
+    private static final long ID = 980001;
+
+    private static final String LOGIN = "version-user";
+
+    private static final String PASSWORD_HASH = RandomStringUtils.randomAlphanumeric(60);
+
+    @Autowired
+    private UserVersionService userVersionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @BeforeEach
+    public void setup() {
+        jdbcTemplate.update("insert into jhi_user (id, login, password_hash, activated, created_by) values (?, ?, ?, true, 'system')",
+            ID, LOGIN, PASSWORD_HASH);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("delete from jhi_user_authority where user_id = ?", ID);
+        jdbcTemplate.update("delete from jhi_user where id = ?", ID);
+        applicationEventPublisher.publishEvent(new UserChangedEvent(LOGIN, null));
+    }
+
+    @Test
+    public void testVersionIsCachedUntilTheUserChanges() {
+        String version = userVersionService.findVersionByLogin(LOGIN).orElse(null);
+        assertThat(version).isNotNull();
+        assertThat(userVersionService.findVersionById(ID)).contains(version);
+
+        jdbcTemplate.update("insert into jhi_user_authority (user_id, authority_name) values (?, ?)", ID, AuthoritiesConstants.USER);
+        assertThat(userVersionService.findVersionByLogin(LOGIN)).contains(version);
+
+        applicationEventPublisher.publishEvent(new UserChangedEvent(LOGIN, null));
+        Optional<String> changed = userVersionService.findVersionByLogin(LOGIN);
+        assertThat(changed).isPresent();
+        assertThat(changed.get()).isNotEqualTo(version);
+        assertThat(userVersionService.findVersionById(ID)).isEqualTo(changed);
+    }
+
+    @Test
+    public void testUnknownUserHasNoVersion() {
+        assertThat(userVersionService.findVersionByLogin("version-unknown")).isEmpty();
+    }
+}
@@ -0,0 +1,125 @@
+package com.mycompany.myapp.web.rest;
+
+import com.mycompany.myapp.JhipsterSampleApplicationApp;
+import com.mycompany.myapp.service.UserExportService;
+import com.mycompany.myapp.web.rest.errors.ExceptionTranslator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.StreamUtils;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link UserExportResource} REST controller.
+ */
+@SpringBootTest(classes = JhipsterSampleApplicationApp.class)
+public class UserExportResourceIT {
+
+    private static final long FORMULA_USER_ID = 990201L;
+
+    private static final String PASSWORD_HASH = RandomStringUtils.randomAlphanumeric(60);
+
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restUserMockMvc;
+
+    @BeforeEach
+    public void setup() {
+        UserExportResource userExportResource = new UserExportResource(userExportService);
+
+        this.restUserMockMvc = MockMvcBuilders.standaloneSetup(userExportResource)
+            .setControllerAdvice(exceptionTranslator)
+            .build();
+    }
+
+    @Test
+    public void exportUsersAsNdjson() throws Exception {
+        String export = restUserMockMvc.perform(get("/api/users/export"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"users.ndjson\""))
+            .andReturn().getResponse().getContentAsString();
+
+        String[] lines = export.split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[1]).contains("\"login\":\"admin\"").contains("\"authorities\":[\"ROLE_ADMIN\",\"ROLE_USER\"]");
+        assertThat(export).doesNotContain("anonymoususer");
+    }
+
+    @Test
+    public void exportUsersAsGzippedCsv() throws Exception {
+        byte[] export = restUserMockMvc.perform(get("/api/users/export?format=csv&gzip=true"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/gzip"))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        String csv = StreamUtils.copyToString(new GZIPInputStream(new ByteArrayInputStream(export)), StandardCharsets.UTF_8);
+        String[] lines = csv.split("\n");
+        assertThat(lines).hasSize(4);
+        assertThat(lines[0]).startsWith("id,login,");
+        assertThat(lines[2]).startsWith("3,admin,");
+    }
+
+    @Test
+    public void exportUsersWithUnsupportedFormat() throws Exception {
+        restUserMockMvc.perform(get("/api/users/export?format=xml"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void exportUsersByPagesOfOneUser() throws Exception {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        long exported = userExportService.export(UserExportService.Format.NDJSON, expected);
+        ByteArrayOutputStream paged = new ByteArrayOutputStream();
+        UserExportService pagedExportService = new UserExportService(dataSource, transactionManager, objectMapper, 1);
+
+        assertThat(pagedExportService.export(UserExportService.Format.NDJSON, paged)).isEqualTo(exported);
+        assertThat(paged.toString("UTF-8")).isEqualTo(expected.toString("UTF-8"));
+    }
+
+    @Test
+    public void exportUsersAsCsvNeutralisesFormulas() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("insert into jhi_user (id, login, password_hash, first_name, last_name, email, activated, created_by) " +
+                "values (?, 'formula', ?, '=HYPERLINK(\"http://evil\")', '-1+1', '@formula@localhost', true, 'system')",
+            FORMULA_USER_ID, PASSWORD_HASH);
+        try {
+            String csv = restUserMockMvc.perform(get("/api/users/export?format=csv"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+            assertThat(csv).contains(FORMULA_USER_ID + ",formula,\"'=HYPERLINK(\"\"http://evil\"\")\",'-1+1,'@formula@localhost,");
+        } finally {
+            jdbcTemplate.update("delete from jhi_user where id = ?", FORMULA_USER_ID);
+        }
+    }
+}
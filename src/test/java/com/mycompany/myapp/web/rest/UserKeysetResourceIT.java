@@ -0,0 +1,97 @@
+package com.mycompany.myapp.web.rest;
+
+import com.mycompany.myapp.JhipsterSampleApplicationApp;
+import com.mycompany.myapp.repository.UserKeysetRepository;
+import com.mycompany.myapp.web.rest.errors.ExceptionTranslator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the {@link UserKeysetResource} REST controller.
+ */
+@SpringBootTest(classes = JhipsterSampleApplicationApp.class)
+public class UserKeysetResourceIT {
+
+    @Autowired
+    private UserKeysetRepository userKeysetRepository;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restUserMockMvc;
+
+    @BeforeEach
+    public void setup() {
+        UserKeysetResource userKeysetResource = new UserKeysetResource(userKeysetRepository);
+
+        this.restUserMockMvc = MockMvcBuilders.standaloneSetup(userKeysetResource)
+            .setCustomArgumentResolvers(pageableArgumentResolver)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter)
+            .build();
+    }
+
+    @Test
+    @Transactional
+    public void getUsersWithCursors() throws Exception {
+        String next = restUserMockMvc.perform(get("/api/users?after=&size=1&sort=id,asc")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].login").value("system"))
+            .andExpect(header().doesNotExist(UserKeysetResource.PREVIOUS_CURSOR_HEADER))
+            .andExpect(header().string("Link", containsString("rel=\"next\"")))
+            .andReturn().getResponse().getHeader(UserKeysetResource.NEXT_CURSOR_HEADER);
+
+        String previous = restUserMockMvc.perform(get("/api/users?size=1&sort=id,asc&after=" + next)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].login").value("admin"))
+            .andExpect(header().exists(UserKeysetResource.NEXT_CURSOR_HEADER))
+            .andReturn().getResponse().getHeader(UserKeysetResource.PREVIOUS_CURSOR_HEADER);
+
+        restUserMockMvc.perform(get("/api/users?size=1&sort=id,asc&before=" + previous)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].login").value("system"))
+            .andExpect(header().doesNotExist(UserKeysetResource.PREVIOUS_CURSOR_HEADER))
+            .andExpect(header().exists(UserKeysetResource.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void getUsersWithUnsupportedSort() throws Exception {
+        restUserMockMvc.perform(get("/api/users?after=&sort=email,asc")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getUsersWithCursorOfAnotherSort() throws Exception {
+        String next = restUserMockMvc.perform(get("/api/users?after=&size=1&sort=id,asc")
+            .accept(MediaType.APPLICATION_JSON))
+            .andReturn().getResponse().getHeader(UserKeysetResource.NEXT_CURSOR_HEADER);
+
+        restUserMockMvc.perform(get("/api/users?size=1&sort=login,asc&after=" + next)
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -272,6 +272,14 @@ public class UserLoginResourceIT {
             .andExpect(jsonPath("$.[*].langKey").value(hasItem(DEFAULT_LANGKEY)));
     }
 
+    @Test
+    @Transactional
+    public void getAllUsersWithUnsupportedSort() throws Exception {
+        restUserMockMvc.perform(get("/api/users?sort=password,asc")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void getUser() throws Exception {
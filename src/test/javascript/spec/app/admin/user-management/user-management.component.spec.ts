@@ -54,6 +54,38 @@ describe('Component Tests', () => {
       ));
     });
 
+    describe('cursor mode', () => {
+      it('Should follow the next cursor', inject(
+        [],
+        fakeAsync(() => {
+          // GIVEN
+          const headers = new HttpHeaders().append('X-Next-Cursor', 'next').append('X-Previous-Cursor', 'previous');
+          spyOn(service, 'query').and.returnValue(
+            of(
+              new HttpResponse({
+                body: [new User(123)],
+                headers
+              })
+            )
+          );
+          comp.predicate = 'id';
+          comp.reverse = true;
+
+          // WHEN
+          comp.toggleCursorMode();
+          tick(); // simulate async
+          comp.loadNextPage();
+          tick(); // simulate async
+
+          // THEN
+          expect(service.query).toHaveBeenCalledWith(jasmine.objectContaining({ after: '', sort: ['id,asc'] }));
+          expect(service.query).toHaveBeenCalledWith(jasmine.objectContaining({ after: 'next' }));
+          expect(comp.previousCursor).toEqual('previous');
+          expect(comp.users[0]).toEqual(jasmine.objectContaining({ id: 123 }));
+        })
+      ));
+    });
+
     describe('setActive', () => {
       it('Should update user and call load all', inject(
         [],